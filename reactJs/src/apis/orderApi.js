@@ -8,14 +8,19 @@ export const createOrder = async ({ items,
     promotionCode,
     notes,
     clearCart,
+    quoteId,
+    idempotencyKey,
     platform = "web"
 }) =>
     safeApiCall(() => api.post(
         `orders/checkout`, {
         items, shippingName, shippingAddress,
         shippingPhone, paymentMethod,
-        promotionCode, notes, clearCart, platform
-    }))
+        promotionCode, notes, clearCart, quoteId, platform
+    }, idempotencyKey ? { headers: { "Idempotency-Key": idempotencyKey } } : undefined))
+
+export const createCheckoutQuote = async (items, promotionCode) =>
+    safeApiCall(() => api.post(`orders/checkout/quote`, { items, promotionCode }))
 
 export const cancelOrder = async (orderId, reason) => {
     return safeApiCall(() =>
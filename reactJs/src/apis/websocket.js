@@ -3,16 +3,18 @@ import { over } from "stompjs";
 
 let stompClient = null;
 
-export const connectWebSocket = (token, onMessageReceived) => {
+// destination: "/topic/orders" (all, ADMIN/MANAGER), "/topic/orders/warehouse/{id}" (STAFF) or "/topic/orders/customer/{id}"
+// Each frame carries a batch of order events
+export const connectWebSocket = (token, onMessageReceived, destination = "/topic/orders") => {
     const socket = new SockJS(`https://api.elecstoredoantotnghiep.id.vn/orders/ws?token=${token}`);
     stompClient = over(socket);
 
     stompClient.connect(
         {},
         () => {
-            const subscription = stompClient.subscribe("/topic/orders", (msg) => {
-                const event = JSON.parse(msg.body);
-                onMessageReceived(event);
+            const subscription = stompClient.subscribe(destination, (msg) => {
+                const events = JSON.parse(msg.body);
+                onMessageReceived(Array.isArray(events) ? events : [events]);
             });
 
             // Save unsubscribe function for cleanup
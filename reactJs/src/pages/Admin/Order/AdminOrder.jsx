@@ -70,10 +70,14 @@ function AdminOrder() {
         if (!warehouses) return;
         if (sortWarehouse === null) return;
         const token = localStorage.getItem("token") || sessionStorage.getItem("token");
+        // Staff only receive their own warehouse's orders
+        const destination = role === "STAFF"
+            ? `/topic/orders/warehouse/${staffWarehouseId}`
+            : "/topic/orders";
         connectWebSocket(token, (event) => {
             console.log("Order event:", event);
             getData(currentPage);
-        });
+        }, destination);
 
         return () => disconnectWebSocket();
     }, [warehouses]);
@@ -514,6 +518,14 @@ function AdminOrder() {
                                     {orderDetails.updatedAt && <p>Ngày cập nhật: {new Date(orderDetails.updatedAt).toLocaleString("vi-VN")}</p>}
                                     {orderDetails.cancelledDate && <p>Ngày hủy: {new Date(orderDetails.cancelledDate).toLocaleString("vi-VN")}</p>}
                                     {orderDetails.confirmedBy && <p>Nhân viên xác nhận: NV{orderDetails.confirmedBy}</p>}
+                                    {orderDetails.fulfillments?.length > 1 && orderDetails.fulfillments.map(f => (
+                                        <p key={f.warehouseId}>
+                                            Kho {warehouseMap?.[f.warehouseId] || f.warehouseId}:{" "}
+                                            {f.state === "PROCESSED"
+                                                ? `Đã xử lý${f.processedAt ? ` (${new Date(f.processedAt).toLocaleString("vi-VN")})` : ""}`
+                                                : "Chờ xử lý"}
+                                        </p>
+                                    ))}
                                     {orderDetails.updatedBy && <p>Nhân viên cập nhật: NV{orderDetails.updatedBy}</p>}
                                 </div>
                             </div>
@@ -8,8 +8,8 @@ import { AuthContext } from "../contexts/AuthContext";
 import ConfirmPanel from "../components/ConfirmPanel";
 import VerificationSection from "../components/VerificationSection";
 import { PopupContext } from "../contexts/PopupContext";
-import { getActivePromotions, validatePromotionCode } from "../apis/promotionApi";
-import { createOrder } from "../apis/orderApi";
+import { getActivePromotions } from "../apis/promotionApi";
+import { createCheckoutQuote, createOrder } from "../apis/orderApi";
 import { Helmet } from "react-helmet-async";
 
 export default function CheckoutPage() {
@@ -21,7 +21,6 @@ export default function CheckoutPage() {
     const [step, setStep] = useState(0);
     const [deliveryFee, setDeliveryFee] = useState(0)
     const [promoCode, setPromoCode] = useState("");
-    const [discountedAmount, setDiscountedAmount] = useState(0);
     const [showPromoPanel, setShowPromoPanel] = useState(false);
     const [promotions, setPromotions] = useState([]);
     const [loadingPromos, setLoadingPromos] = useState(false);
@@ -44,6 +43,9 @@ export default function CheckoutPage() {
     const [selectedPhone, setSelectedPhone] = useState(null);
     const [paymentMethod, setPaymentMethod] = useState("")
     const [isCreatingOrder, setIsCreatingOrder] = useState(false)
+    const [quote, setQuote] = useState(null)
+    // Same key for every submit of this page, so double clicks and retries create one order
+    const [idempotencyKey] = useState(() => crypto.randomUUID())
     // Only persist selected item variantIds
     const [selectedItems, setSelectedItems] = useState(() => {
         const saved = localStorage.getItem("selectedItems");
@@ -88,31 +90,38 @@ export default function CheckoutPage() {
         selectedItems.includes(item.variantId)
     );
 
+    const orderItemRequest = selectedCartItems.map(item => ({
+        productId: item.productId,
+        variantId: item.variantId,
+        quantity: item.quantity
+    }));
+    const quoteKey = JSON.stringify(orderItemRequest);
+
     const selectedSubtotal = selectedCartItems.reduce(
         (sum, item) => sum + item.totalPrice,
         0
     );
-    const handleValidatePromotionCode = async (code) => {
-        const categoryIds = [...new Set(selectedCartItems.map(item => item.categoryId))];
-        const brandIds = [...new Set(selectedCartItems.map(item => item.brandId))];
-        const res = await validatePromotionCode(
-            code,
-            selectedSubtotal,
-            selectedCartItems.map(item => item.productId),
-            categoryIds,
-            brandIds
-        );
-        if (res.error) {
-            showPopup(res.error);
-            return false;
-        }
-        else if (!res.data.isValid) {
-            showPopup(res.data.message);
-            return false;
-        }
-        setDiscountedAmount(res.data.discountAmount);
-        return true;
-    };
+
+    // Priced once the customer reaches the confirm step: the quote validates the promotion and
+    // locks in the shown prices. Checkout falls back to full validation if it is missing or expired
+    useEffect(() => {
+        setQuote(null);
+        if (step !== 2 || orderItemRequest.length === 0) return;
+        let cancelled = false;
+        createCheckoutQuote(orderItemRequest, promoCode || null).then(res => {
+            if (cancelled) return;
+            if (res.error) {
+                if (promoCode) {
+                    setPromoCode("");
+                    setSelectedPromo(null);
+                }
+                return showPopup(res.error);
+            }
+            setQuote(res.data);
+        });
+        return () => { cancelled = true; };
+    }, [step, quoteKey, promoCode]);
+
     const fetchPromotions = async () => {
         setLoadingPromos(true);
         try {
@@ -129,17 +138,11 @@ export default function CheckoutPage() {
     const handleSelectPromo = (promo) => {
         setSelectedPromo(promo);
     };
-    const handleApplyPromo = async () => {
+    // The code is validated by the quote on the confirm step
+    const handleApplyPromo = () => {
         if (selectedPromo) {
-            const isValid = await handleValidatePromotionCode(selectedPromo.code);
-            if (isValid) {
-                setPromoCode(selectedPromo.code);
-                setShowPromoPanel(false);
-                return;
-            }
-            setPromoCode(null);
-            setDiscountedAmount(0)
-            setSelectedPromo(null);
+            setPromoCode(selectedPromo.code);
+            setShowPromoPanel(false);
         }
     };
     // console.log(selectedCartItems)
@@ -215,12 +218,8 @@ export default function CheckoutPage() {
         try {
             if (paymentMethod === "")
                 return showPopup("Vui lòng chọn phương thức thanh toán!");
-
-            const orderItemRequest = selectedCartItems.map(item => ({
-                productId: item.productId,
-                variantId: item.variantId,
-                quantity: item.quantity
-            }));
+            if (!quote)
+                return showPopup("Đang tính giá đơn hàng, vui lòng đợi!");
 
             const res = await createOrder({
                 items: orderItemRequest,
@@ -229,7 +228,9 @@ export default function CheckoutPage() {
                 shippingPhone: selectedPhone,
                 paymentMethod: paymentMethod,
                 promotionCode: promoCode,
-                clearCart: false
+                clearCart: false,
+                quoteId: quote?.quoteId,
+                idempotencyKey
             });
 
             if (res.error) {
@@ -527,15 +528,15 @@ export default function CheckoutPage() {
                                             {`${(deliveryFee).toLocaleString("vi-VN")}đ`}
                                         </span>)}
                                 </div>
-                                {discountedAmount > 0 && (
+                                {promoCode && (
                                     <div className="flex justify-between mb-2">
-                                        <span className="text-gray-600">Giảm giá</span>
-                                        <span className="font-semibold text-red-500">{(discountedAmount.toLocaleString("vi-VN"))}₫</span>
+                                        <span className="text-gray-600">Mã giảm giá</span>
+                                        <span className="font-semibold text-red-500">{promoCode}</span>
                                     </div>
                                 )}
                                 <div className="flex justify-between text-xl mt-8 border-t pt-4 font-semibold">
-                                    <span>Tổng cộng</span>
-                                    <span>{(selectedSubtotal + deliveryFee - discountedAmount).toLocaleString("vi-VN")}₫</span>
+                                    <span>Tạm tính</span>
+                                    <span>{(selectedSubtotal + deliveryFee).toLocaleString("vi-VN")}₫</span>
                                 </div>
                             </div>
                             <div className="flex gap-2">
@@ -788,15 +789,16 @@ export default function CheckoutPage() {
                         <div className="flex-5 border border-gray-200 rounded-lg py-8 px-10 space-y-6">
                             <h2 className="text-2xl font-bold mb-4">Đơn hàng của bạn</h2>
                             <div className="space-y-3 max-h-[350px] overflow-y-auto">
-                                {selectedCartItems.map(item => (
-                                    <div key={item.id} className="p-3 flex items-center bg-gray-100 rounded-xl">
+                                {!quote && <p className="text-gray-500">Đang tính giá đơn hàng...</p>}
+                                {quote?.lines.map(item => (
+                                    <div key={item.variantId} className="p-3 flex items-center bg-gray-100 rounded-xl">
                                         <img
-                                            src={item.imageUrls?.main}
-                                            alt={item.variantName}
+                                            src={selectedCartItems.find(c => c.variantId === item.variantId)?.imageUrls?.main}
+                                            alt={item.name}
                                             className="w-20 h-20 object-cover rounded mr-6"
                                         />
                                         <div className="flex-1 flex justify-between items-center">
-                                            <p className="font-semibold line-clamp-2 text-gray-800 mr-4">{item.variantName}</p>
+                                            <p className="font-semibold line-clamp-2 text-gray-800 mr-4">{item.name}</p>
 
                                             {/* Quantity and total price */}
                                             <div className="flex items-center gap-3">
@@ -814,7 +816,7 @@ export default function CheckoutPage() {
                             <div className="mt-8">
                                 <div className="text-lg flex justify-between font-semibold mb-1">
                                     <span className="text-gray-800">Tiền sản phẩm</span>
-                                    <span>{selectedSubtotal.toLocaleString("vi-VN")}₫</span>
+                                    <span>{(quote?.subtotal ?? 0).toLocaleString("vi-VN")}₫</span>
                                 </div>
                                 <div className="text-lg flex justify-between mb-2">
                                     <span className="text-gray-600">Phí giao hàng  & phát sinh</span>
@@ -823,15 +825,15 @@ export default function CheckoutPage() {
                                             {`${(deliveryFee).toLocaleString("vi-VN")}đ`}
                                         </span>)}
                                 </div>
-                                {discountedAmount > 0 && (
+                                {quote?.discountAmount > 0 && (
                                     <div className="text-lg flex justify-between mb-2">
-                                        <span className="text-gray-600">Giảm giá</span>
-                                        <span className="font-semibold text-red-500">{(discountedAmount.toLocaleString("vi-VN"))}₫</span>
+                                        <span className="text-gray-600">Giảm giá ({quote.promotionCode})</span>
+                                        <span className="font-semibold text-red-500">{(quote.discountAmount.toLocaleString("vi-VN"))}₫</span>
                                     </div>
                                 )}
                                 <div className="text-lg flex justify-between font-semibold text-lg">
                                     <span>Tổng cộng</span>
-                                    <span className="font-bold">{(selectedSubtotal + deliveryFee - discountedAmount).toLocaleString("vi-VN")}₫</span>
+                                    <span className="font-bold">{((quote?.totalAmount ?? 0) + deliveryFee).toLocaleString("vi-VN")}₫</span>
                                 </div>
                             </div>
                         </div>
@@ -79,6 +79,17 @@ public class CartController {
         return ResponseEntity.ok(new ApiResponse<>("Removed successfully", true, null));
     }
 
+    /**
+     * Xóa nhiều variant khỏi giỏ hàng trong một lần gọi (dùng sau checkout)
+     */
+    @DeleteMapping("/internal/customer/variants")
+    public ResponseEntity<ApiResponse<Integer>> internalRemoveVariants(
+            @RequestHeader("X-Owner-Id") Long customerId,
+            @RequestParam("variantIds") List<Long> variantIds) {
+        int removed = cartService.removeByCustomerAndVariants(customerId, variantIds);
+        return ResponseEntity.ok(new ApiResponse<>("Removed successfully", true, removed));
+    }
+
     /**
      * Xóa toàn bộ giỏ hàng
      */
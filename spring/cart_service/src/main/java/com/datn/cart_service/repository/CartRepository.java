@@ -2,8 +2,12 @@ package com.datn.cart_service.repository;
 
 import com.datn.cart_service.entity.ShoppingCart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +26,12 @@ public interface CartRepository extends JpaRepository<ShoppingCart, Long> {
     // Xóa 1 sản phẩm cụ thể khỏi giỏ hàng
     void deleteByCustomerIdAndVariantId(Long customerId, Long variantId);
 
+    // Xóa nhiều sản phẩm khỏi giỏ hàng trong một câu lệnh
+    @Modifying
+    @Query("DELETE FROM ShoppingCart c WHERE c.customerId = :customerId AND c.variantId IN :variantIds")
+    int deleteByCustomerIdAndVariantIdIn(@Param("customerId") Long customerId,
+                                         @Param("variantIds") Collection<Long> variantIds);
+
     // Đếm tổng số sản phẩm trong giỏ
     Long countByCustomerId(Long customerId);
 
@@ -23,6 +23,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -154,6 +155,21 @@ public class CartService {
         cartRepository.deleteByCustomerIdAndVariantId(customerId, variantId);
     }
 
+    /**
+     * Xóa nhiều variant khỏi giỏ hàng bằng một câu lệnh DELETE
+     * Variant không có trong giỏ được bỏ qua nên gọi lại nhiều lần vẫn an toàn
+     */
+    @CacheEvict(value = "customerCart",key = "#customerId")
+    @Transactional
+    public int removeByCustomerAndVariants(Long customerId, List<Long> variantIds) {
+        if (variantIds == null || variantIds.isEmpty()) {
+            return 0;
+        }
+        int removed = cartRepository.deleteByCustomerIdAndVariantIdIn(customerId, new HashSet<>(variantIds));
+        log.info("Xóa {} variant - Khách hàng: {}, Variant: {}", removed, customerId, variantIds);
+        return removed;
+    }
+
     @CacheEvict(value = "customerCart",key = "#customerId")
     @Transactional
     public void clearCart(Long customerId) {
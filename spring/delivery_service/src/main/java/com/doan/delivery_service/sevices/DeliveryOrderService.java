@@ -14,6 +14,7 @@ import com.doan.delivery_service.repositories.ShipperRepository;
 import com.doan.delivery_service.repositories.feign.InventoryRepositoryClient;
 import com.doan.delivery_service.repositories.feign.OrderRepositoryClient;
 import com.doan.delivery_service.sevices.cloud.CloudinaryService;
+import com.doan.delivery_service.utils.DocumentNumberGenerator;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,8 +26,6 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,6 +37,7 @@ public class DeliveryOrderService {
     private final InventoryRepositoryClient inventoryRepositoryClient;
     private final OrderRepositoryClient orderRepositoryClient;
     private final CloudinaryService cloudinaryService;
+    private final DocumentNumberGenerator documentNumberGenerator;
 
     private static final List<DeliveryStatus> ACTIVE_STATUSES = List.of(
             DeliveryStatus.ASSIGNED, DeliveryStatus.SHIPPING,DeliveryStatus.FAILED
@@ -89,18 +89,7 @@ public class DeliveryOrderService {
     }
 
     public String generateDeliveryNumber() {
-        String prefix = "GH";
-        String datePart = OffsetDateTime.now().format(DateTimeFormatter.ofPattern("ddMMyyyy"));
-
-        OffsetDateTime startOfDay = OffsetDateTime.now()
-                .toLocalDate()
-                .atStartOfDay()
-                .atOffset(ZoneOffset.UTC);
-        OffsetDateTime endOfDay = startOfDay.plusDays(1);
-
-        long countToday = deliveryOrderRepository.countByCreatedAtBetween(startOfDay, endOfDay);
-
-        return prefix + "-" + datePart + "-" + (countToday + 1);
+        return documentNumberGenerator.next("GH", deliveryOrderRepository::countByCreatedAtBetween);
     }
 
     @Transactional
@@ -0,0 +1,169 @@
+package com.doan.delivery_service.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out document codes "PREFIX-ddMMyyyy-N", numbered per prefix and day, from blocks leased
+ * off a per-day database sequence that steps by the block size. One nextval leases a whole block,
+ * so most codes need no query, and instances never share a block, so codes cannot collide.
+ * Everything runs on the caller's connection, and nextval is never rolled back, so a rolled back
+ * document leaves a gap instead of a reused number.
+ * <p>
+ * The first code of a day creates the day's sequence in the caller's transaction, under an
+ * advisory lock that makes concurrent callers wait for that transaction to end. Until it commits
+ * the sequence is visible to that transaction only, so its leases are not cached for other
+ * callers; if it rolls back, the sequence goes with it and is created again later.
+ * Creating a day's sequence also drops the prefix's sequences from before yesterday.
+ */
+@Component
+public class DocumentNumberGenerator {
+
+    private static final DateTimeFormatter DATE_PART = DateTimeFormatter.ofPattern("ddMMyyyy");
+    private static final DateTimeFormatter SEQUENCE_DATE_PART = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern PREFIX = Pattern.compile("[A-Za-z]{1,16}");
+    private static final String EXISTS_SQL = "SELECT to_regclass(?) IS NOT NULL";
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext(?))";
+    // The block is read from the sequence itself, so a changed block size only applies to new days
+    private static final String LEASE_SQL = """
+            SELECT nextval(CAST(? AS regclass)) AS block_start, s.seqincrement AS block_size
+            FROM pg_sequence s WHERE s.seqrelid = CAST(? AS regclass)
+            """;
+    private static final String PAST_SEQUENCES_SQL = """
+            SELECT sequencename FROM pg_sequences
+            WHERE schemaname = current_schema() AND sequencename ~ ? AND sequencename < ?
+            """;
+    private static final String CREATED_RESOURCE = DocumentNumberGenerator.class.getName() + ".created";
+
+    /**
+     * Counts documents created in [start, end); used once per prefix and day to start numbering
+     * above codes issued before the day's sequence existed.
+     */
+    @FunctionalInterface
+    public interface IssuedCount {
+        long between(OffsetDateTime start, OffsetDateTime end);
+    }
+
+    private static final class Block {
+        long next = 1;
+        long end = 0;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    @Value("${document-numbers.block-size:50}")
+    private int blockSize;
+
+    public DocumentNumberGenerator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Must run inside the transaction that saves the document.
+     */
+    public String next(String prefix, IssuedCount issuedCount) {
+        if (!PREFIX.matcher(prefix).matches()) {
+            throw new IllegalArgumentException("Invalid document prefix " + prefix);
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Document numbers must be issued inside a transaction");
+        }
+        LocalDate today = LocalDate.now();
+        String datePart = today.format(DATE_PART);
+        String key = prefix + "-" + datePart;
+        if (!blocks.containsKey(key)) {
+            blocks.keySet().removeIf(other -> !other.endsWith("-" + datePart));
+        }
+        Block block = blocks.computeIfAbsent(key, k -> new Block());
+        synchronized (block) {
+            if (block.next <= block.end) {
+                return key + "-" + block.next++;
+            }
+        }
+
+        // Leased without holding the block: creating the day's sequence may wait on another transaction
+        String sequence = sequenceName(prefix, today);
+        Map<String, Object> lease = lease(prefix, sequence, today, issuedCount);
+        long start = ((Number) lease.get("block_start")).longValue();
+        long size = ((Number) lease.get("block_size")).longValue();
+        if (!createdInThisTransaction(sequence)) {
+            synchronized (block) {
+                // If another caller refilled the block meanwhile, the rest of this lease is a gap
+                if (block.next > block.end) {
+                    block.next = start + 1;
+                    block.end = start + size - 1;
+                }
+            }
+        }
+        return key + "-" + start;
+    }
+
+    private Map<String, Object> lease(String prefix, String sequence, LocalDate day, IssuedCount issuedCount) {
+        if (!exists(sequence)) {
+            jdbcTemplate.queryForList(LOCK_SQL, sequence);
+            if (!exists(sequence)) {
+                // Same window the count-based codes used
+                OffsetDateTime start = day.atStartOfDay().atOffset(ZoneOffset.UTC);
+                long issued = issuedCount.between(start, start.plusDays(1));
+                jdbcTemplate.execute("CREATE SEQUENCE " + sequence
+                        + " INCREMENT BY " + blockSize + " START WITH " + (issued + 1));
+                markCreated(sequence);
+                dropPastSequences(prefix, day);
+            }
+        }
+        return jdbcTemplate.queryForMap(LEASE_SQL, sequence, sequence);
+    }
+
+    // Yesterday's sequence is kept for transactions that started before midnight
+    private void dropPastSequences(String prefix, LocalDate day) {
+        String pattern = "^doc_" + prefix.toLowerCase() + "_[0-9]{8}$";
+        String oldestKept = sequenceName(prefix, day.minusDays(1));
+        for (String past : jdbcTemplate.queryForList(PAST_SEQUENCES_SQL, String.class, pattern, oldestKept)) {
+            jdbcTemplate.execute("DROP SEQUENCE IF EXISTS " + past);
+        }
+    }
+
+    private static String sequenceName(String prefix, LocalDate day) {
+        return "doc_" + prefix.toLowerCase() + "_" + day.format(SEQUENCE_DATE_PART);
+    }
+
+    private boolean exists(String sequence) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_SQL, Boolean.class, sequence));
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean createdInThisTransaction(String sequence) {
+        Set<String> created = (Set<String>) TransactionSynchronizationManager.getResource(CREATED_RESOURCE);
+        return created != null && created.contains(sequence);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void markCreated(String sequence) {
+        Set<String> created = (Set<String>) TransactionSynchronizationManager.getResource(CREATED_RESOURCE);
+        if (created == null) {
+            created = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(CREATED_RESOURCE, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CREATED_RESOURCE);
+                }
+            });
+        }
+        created.add(sequence);
+    }
+}
@@ -224,6 +224,34 @@ public class InventoryController {
         }
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/secure/hot-skus")
+    public ResponseEntity<?> getHotSkus() {
+        return ResponseEntity.ok(new ApiResponse<>("Lấy danh sách sản phẩm hot thành công!", true, inventoryService.getHotSkus()));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/secure/hot-skus/{variantId}")
+    public ResponseEntity<?> enableHotSku(@PathVariable Long variantId) {
+        try {
+            inventoryService.enableHotSku(variantId);
+            return ResponseEntity.ok(new ApiResponse<>("Đã bật chế độ hot cho sản phẩm!", true, null));
+        } catch (ResponseStatusException ex) {
+            return errorResponse(ex);
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/secure/hot-skus/{variantId}")
+    public ResponseEntity<?> disableHotSku(@PathVariable Long variantId) {
+        try {
+            inventoryService.disableHotSku(variantId);
+            return ResponseEntity.ok(new ApiResponse<>("Đã tắt chế độ hot cho sản phẩm!", true, null));
+        } catch (ResponseStatusException ex) {
+            return errorResponse(ex);
+        }
+    }
+
     @PostMapping("/internal/transactions")
     public ResponseEntity<?> createOrderTransaction(@RequestBody List<OrderTransactionRequest> request) {
         try {
@@ -254,6 +282,16 @@ public class InventoryController {
         }
     }
 
+    @PostMapping("/internal/transactions/reserve/batch")
+    public ResponseEntity<?> reserveStockBatch(@RequestBody @Valid ReserveStockBatchRequest request) {
+        try {
+            List<Map<Long, Integer>> warehouseData = inventoryService.reserveStockBatch(request);
+            return ResponseEntity.ok(new ApiResponse<>("Cập nhật số lượng sản phẩm khả dụng thành công!", true, warehouseData));
+        } catch (ResponseStatusException ex) {
+            return errorResponse(ex);
+        }
+    }
+
     @PostMapping("/internal/transactions/reserve/{orderNumber}")
     public ResponseEntity<?> releaseStock(@PathVariable String orderNumber,
                                           @RequestBody ReleaseStockRequest request) {
@@ -0,0 +1,21 @@
+package com.doan.inventory_service.dtos.transaction;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockBatchRequest {
+    @NotBlank(message = "Vui lòng nhập mã đơn hàng!")
+    private String orderNumber;
+    @Valid
+    @NotEmpty(message = "Vui lòng nhập danh sách sản phẩm!")
+    private List<ReserveStockItemRequest> items;
+}
@@ -0,0 +1,17 @@
+package com.doan.inventory_service.dtos.transaction;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockItemRequest {
+    @NotNull(message = "Vui lòng nhập mã biến thể!")
+    private Long variantId;
+    @Positive(message="Vui lòng nhập số lượng phù hợp!")
+    private int quantity;
+}
@@ -3,10 +3,12 @@ package com.doan.inventory_service.models;
 import com.doan.inventory_service.services.clients.ProductServiceClient;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.OffsetDateTime;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
 @Table(name = "inventory", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"variant_id", "warehouse_id"})
 })
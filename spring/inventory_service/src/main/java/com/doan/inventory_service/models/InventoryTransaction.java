@@ -10,7 +10,9 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "inventory_transactions")
+@Table(name = "inventory_transactions", indexes = {
+        @Index(name = "idx_inventory_transactions_reserved_pending", columnList = "reserved_pending, inventory_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,6 +42,11 @@ public class InventoryTransaction {
     private Long updatedBy;
     private String status;
 
+    // Hot SKU reservation whose reserved_quantity increment the write-behind has not applied yet
+    @Column(name = "reserved_pending")
+    @Builder.Default
+    private Boolean reservedPending = false;
+
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
 
@@ -5,9 +5,11 @@ import feign.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -90,4 +92,51 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
             "ORDER BY (i.quantity - i.reservedQuantity) ASC")
     Page<Inventory> findAllOrderByAvailableStock(Pageable pageable);
 
+    // Guarded stock updates: each is a single UPDATE whose WHERE clause re-checks the stock,
+    // so concurrent callers cannot both take the same units. They return the number of rows changed.
+    @Modifying
+    @Query("""
+            UPDATE Inventory i
+            SET i.reservedQuantity = i.reservedQuantity + :quantity, i.updatedAt = :now
+            WHERE i.id = :id
+              AND i.isActive = true
+              AND i.quantity - i.reservedQuantity - (
+                  SELECT COALESCE(SUM(t.quantity), 0) FROM InventoryTransaction t
+                  WHERE t.inventory.id = i.id AND t.reservedPending = true) >= :quantity
+            """)
+    int reserveIfAvailable(Long id, int quantity, OffsetDateTime now);
+
+    @Modifying
+    @Query("""
+            UPDATE Inventory i
+            SET i.reservedQuantity = CASE WHEN i.reservedQuantity > :quantity THEN i.reservedQuantity - :quantity ELSE 0 END,
+                i.updatedAt = :now
+            WHERE i.id = :id
+            """)
+    int releaseReserved(Long id, int quantity, OffsetDateTime now);
+
+    @Modifying
+    @Query("""
+            UPDATE Inventory i
+            SET i.quantity = i.quantity + :quantityDelta,
+                i.reservedQuantity = i.reservedQuantity + :reservedDelta,
+                i.updatedAt = :now
+            WHERE i.id = :id
+              AND i.quantity + :quantityDelta >= 0
+              AND i.reservedQuantity + :reservedDelta >= 0
+            """)
+    int applyStockChange(Long id, int quantityDelta, int reservedDelta, OffsetDateTime now);
+
+    @Query("SELECT i.quantity - i.reservedQuantity FROM Inventory i WHERE i.id = :id AND i.isActive = true")
+    Optional<Integer> findAvailableById(Long id);
+
+    // id, warehouse id, quantity, reserved quantity of the variant's active rows
+    @Query("SELECT i.id, i.warehouse.id, i.quantity, i.reservedQuantity FROM Inventory i " +
+            "WHERE i.variantId = :variantId AND i.isActive = true ORDER BY i.id")
+    List<Object[]> findStockRowsByVariantId(Long variantId);
+
+    // variant id, total available over all of the variant's rows
+    @Query("SELECT i.variantId, SUM(i.quantity - i.reservedQuantity) FROM Inventory i " +
+            "WHERE i.variantId IN :variantIds GROUP BY i.variantId")
+    List<Object[]> sumAvailableByVariantIds(Collection<Long> variantIds);
 }
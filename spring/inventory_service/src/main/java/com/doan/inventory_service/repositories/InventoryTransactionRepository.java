@@ -1,17 +1,23 @@
 package com.doan.inventory_service.repositories;
 
 import com.doan.inventory_service.models.InventoryTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long>, JpaSpecificationExecutor<InventoryTransaction> {
     long countByCreatedAtBetween(OffsetDateTime start, OffsetDateTime end);
@@ -25,17 +31,45 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
     List<InventoryTransaction> findByInventoryIdAndStatusAndCreatedAtBetweenOrderByCreatedAtDesc(Long id, String status, OffsetDateTime from, OffsetDateTime to);
     List<InventoryTransaction> findByInventoryIdAndStatusAndUpdatedAtBetweenOrderByCreatedAtAsc(Long id, String status, OffsetDateTime from, OffsetDateTime to);
 
-    @Query("""
-       SELECT t
-       FROM InventoryTransaction t
-       WHERE t.inventory.id IN :inventoryIds
-         AND t.status = :status
-         AND t.updatedAt BETWEEN :from AND :to
-       ORDER BY t.inventory.id, t.createdAt ASC
-       """)
-    List<InventoryTransaction> findAllByInventoryIdsAndStatusAndUpdatedAtBetween(
-            @Param("inventoryIds") List<Long> inventoryIds,
-            @Param("status") String status,
+    interface QuantityChangeRow {
+        Long getInventoryId();
+
+        Long getVariantId();
+
+        Integer getQuantity();
+
+        String getWarehouseCode();
+
+        Long getTotalImport();
+
+        Long getTotalExport();
+
+        Long getTotalAdjust();
+    }
+
+    // One row per active inventory, with its COMPLETED transactions in the range summed by type
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = """
+       SELECT i.id AS "inventoryId",
+              i.variant_id AS "variantId",
+              i.quantity AS "quantity",
+              w.code AS "warehouseCode",
+              COALESCE(SUM(t.quantity) FILTER (WHERE t.transaction_type = 'IMPORT'), 0) AS "totalImport",
+              COALESCE(SUM(t.quantity) FILTER (WHERE t.transaction_type = 'EXPORT'), 0) AS "totalExport",
+              COALESCE(SUM(t.quantity) FILTER (WHERE t.transaction_type = 'ADJUST'), 0) AS "totalAdjust"
+       FROM inventory i
+       JOIN warehouses w ON w.id = i.warehouse_id
+       LEFT JOIN inventory_transactions t
+              ON t.inventory_id = i.id
+             AND t.status = 'COMPLETED'
+             AND t.updated_at BETWEEN :from AND :to
+       WHERE i.is_active = true
+         AND (CAST(:warehouseId AS bigint) IS NULL OR i.warehouse_id = :warehouseId)
+       GROUP BY i.id, w.code
+       ORDER BY i.id
+       """, nativeQuery = true)
+    Stream<QuantityChangeRow> streamQuantityChanges(
+            @Param("warehouseId") Long warehouseId,
             @Param("from") OffsetDateTime from,
             @Param("to") OffsetDateTime to
     );
@@ -128,4 +162,36 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
     );
 
     List<InventoryTransaction> findByReferenceTypeAndReferenceCodeAndTransactionType(String refType, String refCode, String type);
+
+    // Hot SKU journal: RESERVE rows whose reserved_quantity increment is still to be applied
+    @Query("""
+            SELECT t.inventory.id, SUM(t.quantity)
+            FROM InventoryTransaction t
+            WHERE t.inventory.variantId = :variantId
+              AND t.reservedPending = true
+            GROUP BY t.inventory.id
+            """)
+    List<Object[]> sumReservedPendingByVariantId(@Param("variantId") Long variantId);
+
+    long countByReservedPendingTrue();
+
+    // id, inventory id, quantity; rows taken by a concurrent flush or release are skipped
+    @Query(value = """
+            SELECT t.id, t.inventory_id, t.quantity
+            FROM inventory_transactions t
+            WHERE t.reserved_pending = true
+            ORDER BY t.id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Object[]> lockReservedPending(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE InventoryTransaction t SET t.reservedPending = false WHERE t.id IN :ids")
+    int markReservedApplied(@Param("ids") Collection<Long> ids);
+
+    // Returns 1 when this call took the row off the journal, 0 when it was already applied
+    @Modifying
+    @Query("UPDATE InventoryTransaction t SET t.reservedPending = false WHERE t.id = :id AND t.reservedPending = true")
+    int clearReservedPending(@Param("id") Long id);
 }
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @FeignClient(
     name = "product-service",
@@ -26,6 +27,9 @@ public interface ProductVariantRepository {
     @PostMapping("/status/{id}")
     void changeProductVariantStatus(@PathVariable("id") Long id,@RequestParam(name = "status") String status);
 
+    @PostMapping("/status")
+    void changeProductVariantStatusBatch(@RequestBody Map<Long, String> statusByVariant);
+
     @PostMapping("/{id}/importPrice")
     void updateVariantImportPrice(@PathVariable Long id,
                                   @RequestParam int currentStock,
@@ -0,0 +1,296 @@
+package com.doan.inventory_service.services;
+
+import com.doan.inventory_service.repositories.InventoryRepository;
+import com.doan.inventory_service.repositories.InventoryTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory availability for "hot" variants, so flash-sale reservations are decided without
+ * locking the inventory rows. Each hot variant keeps one slot per active inventory row;
+ * variants are guarded by a fixed set of striped locks.
+ * <p>
+ * A granted reservation is journaled by the reserving transaction as a RESERVE row flagged
+ * reserved_pending, and {@link InventoryService} applies the flagged rows to reserved_quantity
+ * behind it. Nothing acknowledged lives only in memory: after a restart the slots are rebuilt
+ * from reserved_quantity plus the flagged rows, and the write-behind picks the flagged rows up.
+ * Units granted by transactions that have not committed yet are held as in-flight on their slot.
+ * Slots are reloaded after any other stock change on the variant.
+ * The ledger is per process: a hot variant must only be reserved through one instance.
+ */
+@Component
+@Slf4j
+public class HotStockLedger {
+
+    private static final int STRIPES = 64;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final TransactionTemplate readTemplate;
+    private final Object[] stripes = new Object[STRIPES];
+    private final Map<Long, List<Slot>> books = new ConcurrentHashMap<>();
+    // Journaled rows not yet applied, as far as this process knows; only used to skip idle flushes
+    private final AtomicLong unapplied = new AtomicLong();
+
+    @Value("${inventory.hot-skus.variant-ids:}")
+    private List<Long> configuredVariantIds;
+
+    @Value("${inventory.hot-skus.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    public record Grant(Long inventoryId, Long warehouseId, int quantity) {
+    }
+
+    private static final class Slot {
+        final Long inventoryId;
+        final Long warehouseId;
+        int available;
+        int inFlight;
+
+        Slot(Long inventoryId, Long warehouseId) {
+            this.inventoryId = inventoryId;
+            this.warehouseId = warehouseId;
+        }
+    }
+
+    public HotStockLedger(InventoryRepository inventoryRepository,
+                          InventoryTransactionRepository inventoryTransactionRepository,
+                          PlatformTransactionManager transactionManager) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryTransactionRepository = inventoryTransactionRepository;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTemplate.setReadOnly(true);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        // Rows journaled before a restart, of hot variants or not, still have to be applied
+        unapplied.set(inventoryTransactionRepository.countByReservedPendingTrue());
+        for (Long variantId : configuredVariantIds) {
+            enable(variantId);
+        }
+        if (!configuredVariantIds.isEmpty() || unapplied.get() > 0) {
+            log.info("Hot stock ledger loaded for variants {}, {} journaled reservations to apply",
+                    configuredVariantIds, unapplied.get());
+        }
+    }
+
+    public boolean isHot(Long variantId) {
+        return books.containsKey(variantId);
+    }
+
+    public Set<Long> hotVariantIds() {
+        return Set.copyOf(books.keySet());
+    }
+
+    public void enable(Long variantId) {
+        synchronized (stripe(variantId)) {
+            load(variantId);
+        }
+    }
+
+    public void disable(Long variantId) {
+        synchronized (stripe(variantId)) {
+            books.remove(variantId);
+        }
+    }
+
+    public int available(Long variantId) {
+        synchronized (stripe(variantId)) {
+            List<Slot> slots = books.get(variantId);
+            return slots == null ? 0 : slots.stream().mapToInt(slot -> slot.available).sum();
+        }
+    }
+
+    /**
+     * Reserves quantity across the variant's rows in id order. Must run inside the reserving
+     * transaction, which has to journal every returned grant as a reserved_pending RESERVE row;
+     * the units are handed back if it rolls back.
+     */
+    public List<Grant> reserve(Long variantId, int quantity) {
+        List<Grant> granted = new ArrayList<>();
+        Map<Long, Integer> taken = new HashMap<>();
+        synchronized (stripe(variantId)) {
+            List<Slot> slots = books.get(variantId);
+            int total = slots == null ? 0 : slots.stream().mapToInt(slot -> Math.max(slot.available, 0)).sum();
+            if (total < quantity) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Không đủ sản phẩm trong kho để đặt giữ");
+            }
+            int pending = quantity;
+            for (Slot slot : slots) {
+                if (pending == 0) break;
+                int take = Math.min(pending, slot.available);
+                if (take <= 0) continue;
+                slot.available -= take;
+                slot.inFlight += take;
+                pending -= take;
+                taken.put(slot.inventoryId, take);
+                granted.add(new Grant(slot.inventoryId, slot.warehouseId, take));
+            }
+        }
+        onCompletion(variantId, taken, () -> unapplied.addAndGet(granted.size()));
+        return granted;
+    }
+
+    /**
+     * Takes quantity from one row of a hot variant for a stock change written directly to that
+     * row in the current transaction, such as a manual export. Fails when the ledger has already
+     * granted those units, even if the row itself still shows them as free.
+     */
+    public void hold(Long variantId, Long inventoryId, int quantity) {
+        synchronized (stripe(variantId)) {
+            Slot slot = findSlot(variantId, inventoryId);
+            if (slot == null || slot.available < quantity) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Số lượng sản phẩm trong kho không đủ!");
+            }
+            slot.available -= quantity;
+            slot.inFlight += quantity;
+        }
+        onCompletion(variantId, Map.of(inventoryId, quantity), () -> {
+        });
+    }
+
+    /**
+     * Reloads the variant's slots once the current transaction commits, for stock changes
+     * made directly on the inventory rows. No-op for variants that are not hot.
+     */
+    public void reloadAfterCommit(Long variantId) {
+        if (!isHot(variantId)) {
+            return;
+        }
+        Runnable reload = () -> {
+            synchronized (stripe(variantId)) {
+                if (books.containsKey(variantId)) {
+                    load(variantId);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload.run();
+                }
+            });
+        } else {
+            reload.run();
+        }
+    }
+
+    public int flushBatchSize() {
+        return flushBatchSize;
+    }
+
+    public boolean hasUnappliedReservations() {
+        return unapplied.get() > 0;
+    }
+
+    // Journaled rows applied by a committed write-behind batch or settled by a release
+    public void markApplied(int rows) {
+        unapplied.updateAndGet(count -> Math.max(count - rows, 0));
+    }
+
+    // Called when a batch found nothing to apply, with the current count of journaled rows
+    public void resyncUnapplied(long count) {
+        unapplied.set(count);
+    }
+
+    // Caller holds the variant's stripe. Journaled rows are read before the stock rows, so a
+    // write-behind batch committing in between is counted twice (too little available), never missed.
+    private void load(Long variantId) {
+        Map<Long, Long> journaled = new HashMap<>();
+        List<Object[]> rows = readTemplate.execute(status -> {
+            for (Object[] row : inventoryTransactionRepository.sumReservedPendingByVariantId(variantId)) {
+                journaled.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            return inventoryRepository.findStockRowsByVariantId(variantId);
+        });
+
+        Map<Long, Slot> previous = new HashMap<>();
+        books.getOrDefault(variantId, List.of()).forEach(slot -> previous.put(slot.inventoryId, slot));
+
+        List<Slot> slots = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long inventoryId = (Long) row[0];
+            Slot slot = new Slot(inventoryId, (Long) row[1]);
+            int quantity = ((Number) row[2]).intValue();
+            long held = ((Number) row[3]).longValue() + journaled.getOrDefault(inventoryId, 0L);
+            Slot old = previous.get(inventoryId);
+            slot.inFlight = old != null ? old.inFlight : 0;
+            slot.available = (int) (quantity - held - slot.inFlight);
+            slots.add(slot);
+        }
+        books.put(variantId, List.copyOf(slots));
+    }
+
+    private Slot findSlot(Long variantId, Long inventoryId) {
+        List<Slot> slots = books.get(variantId);
+        if (slots == null) {
+            return null;
+        }
+        for (Slot slot : slots) {
+            if (slot.inventoryId.equals(inventoryId)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private Object stripe(Long variantId) {
+        return stripes[Math.floorMod(Long.hashCode(variantId), STRIPES)];
+    }
+
+    // In-flight units leave their slots in afterCommit, which runs before the afterCommit
+    // reloads registered later in the same transaction; on rollback they become available again.
+    private void onCompletion(Long variantId, Map<Long, Integer> taken, Runnable committed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Hot stock changes must run inside a transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(variantId, taken, false);
+                committed.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(variantId, taken, true);
+                }
+            }
+        });
+    }
+
+    private void release(Long variantId, Map<Long, Integer> taken, boolean giveBack) {
+        synchronized (stripe(variantId)) {
+            taken.forEach((inventoryId, quantity) -> {
+                Slot slot = findSlot(variantId, inventoryId);
+                if (slot != null) {
+                    slot.inFlight -= quantity;
+                    if (giveBack) {
+                        slot.available += quantity;
+                    }
+                }
+            });
+        }
+    }
+}
@@ -16,17 +16,23 @@ import com.doan.inventory_service.repositories.PurchaseOrderRepository;
 import com.doan.inventory_service.repositories.WarehouseRepository;
 import com.doan.inventory_service.services.clients.OrderServiceClient;
 import com.doan.inventory_service.services.clients.ProductServiceClient;
+import com.doan.inventory_service.utils.DocumentNumberGenerator;
 import com.doan.inventory_service.utils.WebhookUtils;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
@@ -34,13 +40,14 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
+@Slf4j
 public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
@@ -49,6 +56,11 @@ public class InventoryService {
     private final PurchaseOrderRepository purchaseOrderRepository;
     private final ProductServiceClient productServiceClient;
     private final OrderServiceClient orderServiceClient;
+    private final HotStockLedger hotStockLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final DocumentNumberGenerator documentNumberGenerator;
+    private final VariantStatusPublisher variantStatusPublisher;
+    private final VariantLabelCache variantLabelCache;
     @Autowired
     private WebhookUtils webhookUtils;
 
@@ -120,16 +132,108 @@ public class InventoryService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,"Bạn không có quyền cập nhật!");
         inventory.setActive(!inventory.isActive());
         inventoryRepository.save(inventory);
+        hotStockLedger.reloadAfterCommit(inventory.getVariantId());
         webhookUtils.postToWebhook(inventory.getId(), "update");
     }
 
     // ---------------------- RESERVE / RELEASE STOCK ----------------------
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Map<Long,Integer> reserveStock(ReserveStockRequest request) {
-        Map<Long,Integer> warehouseData = new HashMap<>();
+        if (hotStockLedger.isHot(request.getVariantId())) {
+            int before = hotStockLedger.available(request.getVariantId());
+            Map<Long, Integer> warehouseData = reserveHot(
+                    request.getVariantId(), request.getQuantity(), request.getOrderNumber());
+            updateVariantStatusInternal(request.getVariantId(), before, before - request.getQuantity());
+            return warehouseData;
+        }
         List<Inventory> inventories = inventoryRepository.findByVariantId(request.getVariantId());
-        int pending = request.getQuantity();
+        int totalAvailable = getTotalAvailable(inventories);
+
+        Map<Long, Integer> warehouseData = reserveFromInventories(
+                inventories, request.getQuantity(), request.getOrderNumber());
+
+        updateVariantStatusInternal(request.getVariantId(), totalAvailable, totalAvailable - request.getQuantity());
+        for (Inventory inv : inventories) {
+            webhookUtils.postToWebhook(inv.getId(), "update");
+        }
+        return warehouseData;
+    }
+
+    /**
+     * Reserves every line of an order in one transaction. Either all lines are reserved
+     * or none are, so the caller never has to release a partial reservation.
+     * Returns the warehouse split of each line, in request order.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<Map<Long, Integer>> reserveStockBatch(ReserveStockBatchRequest request) {
+        List<Long> variantIds = request.getItems().stream()
+                .map(ReserveStockItemRequest::getVariantId)
+                .distinct()
+                .toList();
+        Map<Long, List<Inventory>> inventoriesByVariant = inventoryRepository.findByVariantIdIn(variantIds).stream()
+                .collect(Collectors.groupingBy(Inventory::getVariantId));
+
+        Map<Long, Integer> availableBefore = new HashMap<>();
+        inventoriesByVariant.forEach((variantId, inventories) ->
+                availableBefore.put(variantId, getTotalAvailable(inventories)));
+        variantIds.stream().filter(hotStockLedger::isHot).forEach(variantId ->
+                availableBefore.put(variantId, hotStockLedger.available(variantId)));
+
+        // Lines are reserved in variant id order so concurrent batches lock rows in the same order
+        List<ReserveStockItemRequest> items = request.getItems();
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(i -> items.get(i).getVariantId()));
+
+        List<Map<Long, Integer>> result = new ArrayList<>(Collections.nCopies(items.size(), null));
+        Map<Long, Integer> reservedByVariant = new HashMap<>();
+        for (int i : order) {
+            ReserveStockItemRequest item = items.get(i);
+            if (hotStockLedger.isHot(item.getVariantId())) {
+                // Handed back by the ledger if a later line fails and the transaction rolls back
+                result.set(i, reserveHot(item.getVariantId(), item.getQuantity(), request.getOrderNumber()));
+            } else {
+                List<Inventory> inventories = inventoriesByVariant.getOrDefault(item.getVariantId(), List.of());
+                result.set(i, reserveFromInventories(inventories, item.getQuantity(), request.getOrderNumber()));
+            }
+            reservedByVariant.merge(item.getVariantId(), item.getQuantity(), Integer::sum);
+        }
+
+        // Only propagate status changes once every line has been reserved
+        reservedByVariant.forEach((variantId, reserved) -> {
+            int before = availableBefore.getOrDefault(variantId, 0);
+            updateVariantStatusInternal(variantId, before, before - reserved);
+        });
+        inventoriesByVariant.entrySet().stream()
+                .filter(entry -> !hotStockLedger.isHot(entry.getKey()))
+                .forEach(entry -> entry.getValue().forEach(inv -> webhookUtils.postToWebhook(inv.getId(), "update")));
+        return result;
+    }
+
+    // Journals each ledger grant as a RESERVE row; the write-behind applies it to reserved_quantity
+    private Map<Long, Integer> reserveHot(Long variantId, int quantity, String orderNumber) {
+        Map<Long, Integer> warehouseData = new HashMap<>();
+        for (HotStockLedger.Grant grant : hotStockLedger.reserve(variantId, quantity)) {
+            inventoryTransactionRepository.save(InventoryTransaction.builder()
+                    .code(generateTransactionCode("RESERVE"))
+                    .inventory(inventoryRepository.getReferenceById(grant.inventoryId()))
+                    .transactionType("RESERVE")
+                    .status("PENDING")
+                    .quantity(grant.quantity())
+                    .referenceType("ORDER")
+                    .referenceCode(orderNumber)
+                    .reservedPending(true)
+                    .build());
+            warehouseData.merge(grant.warehouseId(), grant.quantity(), Integer::sum);
+        }
+        return warehouseData;
+    }
+
+    private Map<Long, Integer> reserveFromInventories(List<Inventory> inventories, int quantity, String orderNumber) {
+        Map<Long, Integer> warehouseData = new HashMap<>();
+        int pending = quantity;
         int totalAvailable = inventories.stream()
+                .filter(Inventory::isActive)
                 .mapToInt(inv -> inv.getQuantity() - inv.getReservedQuantity())
                 .sum();
 
@@ -137,19 +241,14 @@ public class InventoryService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Không đủ sản phẩm trong kho để đặt giữ");
         }
-        for (Inventory inv : inventories) {
-            if (!inv.isActive()) continue;
-            int available = inv.getQuantity() - inv.getReservedQuantity();
-            if (available <= 0) continue;
-
-            int add = Math.min(pending, available);
-            inv.setReservedQuantity(inv.getReservedQuantity() + add);
-            inventoryRepository.save(inv);
+        List<Inventory> byId = inventories.stream()
+                .filter(Inventory::isActive)
+                .sorted(Comparator.comparing(Inventory::getId))
+                .toList();
+        for (Inventory inv : byId) {
+            int add = reserveUpTo(inv, pending);
+            if (add == 0) continue;
             warehouseData.merge(inv.getWarehouse().getId(), add, Integer::sum);
-            updateVariantStatusInternal(inv.getVariantId(),
-                    inv.getQuantity() - (inv.getReservedQuantity() - add),
-                    inv.getQuantity() - inv.getReservedQuantity()
-            );
 
             InventoryTransaction transaction = InventoryTransaction.builder()
                     .code(generateTransactionCode("RESERVE"))
@@ -158,7 +257,7 @@ public class InventoryService {
                     .status("PENDING")
                     .quantity(add)
                     .referenceType("ORDER")
-                    .referenceCode(request.getOrderNumber())
+                    .referenceCode(orderNumber)
                     .build();
             inventoryTransactionRepository.save(transaction);
             pending -= add;
@@ -166,12 +265,135 @@ public class InventoryService {
         }
         if (pending > 0)
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Không đủ sản phẩm trong kho để đặt giữ");
-        for (Inventory inv : inventories) {
-            webhookUtils.postToWebhook(inv.getId(), "update");
-        }
         return warehouseData;
     }
 
+    /**
+     * Reserves as much of quantity as the row has free, through a guarded UPDATE instead of
+     * a locked read. When a concurrent reservation got there first the UPDATE matches no row,
+     * and it is retried against the row's current free stock until it succeeds or none is left.
+     * The loaded entity is not refreshed; its quantities are only a starting estimate.
+     */
+    private int reserveUpTo(Inventory inv, int quantity) {
+        int available = inv.getQuantity() - inv.getReservedQuantity();
+        while (available > 0) {
+            int take = Math.min(quantity, available);
+            if (inventoryRepository.reserveIfAvailable(inv.getId(), take, OffsetDateTime.now()) == 1) {
+                return take;
+            }
+            available = inventoryRepository.findAvailableById(inv.getId()).orElse(0);
+        }
+        return 0;
+    }
+
+    /**
+     * Applies quantity and reserved deltas in one guarded UPDATE, so the change cannot
+     * overwrite a reservation made since the row was loaded, then reloads the entity.
+     */
+    private void applyStockChange(Inventory inventory, int quantityDelta, int reservedDelta) {
+        int updated = inventoryRepository.applyStockChange(
+                inventory.getId(), quantityDelta, reservedDelta, OffsetDateTime.now());
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Số lượng hàng trong kho không đủ!");
+        }
+        em.refresh(inventory);
+        hotStockLedger.reloadAfterCommit(inventory.getVariantId());
+    }
+
+    private int getTotalAvailable(List<Inventory> inventories) {
+        return inventories.stream()
+                .mapToInt(inv -> inv.getQuantity() - inv.getReservedQuantity())
+                .sum();
+    }
+
+    // ---------------------- HOT SKU WRITE-BEHIND ----------------------
+    /**
+     * Applies journaled hot SKU reservations to reserved_quantity, one committed transaction
+     * per batch. Rows are locked with SKIP LOCKED, so a release settling the same row waits
+     * for the batch or is skipped by it, never both applying it.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-skus.flush-interval-ms:200}")
+    public synchronized void flushHotReservations() {
+        int batchSize = hotStockLedger.flushBatchSize();
+        while (hotStockLedger.hasUnappliedReservations()) {
+            int applied;
+            try {
+                applied = transactionTemplate.execute(status -> applyHotReservations(batchSize));
+            } catch (RuntimeException ex) {
+                // The batch rolled back and its rows stay journaled for the next run
+                log.warn("Failed to apply hot SKU reservations: {}", ex.getMessage());
+                return;
+            }
+            if (applied == 0) {
+                // Whatever is left is held by a concurrent release or batch, or was applied by one
+                hotStockLedger.resyncUnapplied(inventoryTransactionRepository.countByReservedPendingTrue());
+                return;
+            }
+            hotStockLedger.markApplied(applied);
+            if (applied < batchSize) return;
+        }
+    }
+
+    private int applyHotReservations(int batchSize) {
+        List<Object[]> rows = inventoryTransactionRepository.lockReservedPending(batchSize);
+        if (rows.isEmpty()) return 0;
+        Map<Long, Integer> reservedByInventory = new TreeMap<>();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).longValue());
+            reservedByInventory.merge(((Number) row[1]).longValue(), ((Number) row[2]).intValue(), Integer::sum);
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        reservedByInventory.forEach((inventoryId, quantity) ->
+                inventoryRepository.applyStockChange(inventoryId, 0, quantity, now));
+        inventoryTransactionRepository.markReservedApplied(ids);
+        reservedByInventory.keySet().forEach(inventoryId -> webhookUtils.postToWebhook(inventoryId, "update"));
+        return rows.size();
+    }
+
+    /**
+     * Applies a journaled reservation in the current transaction if the write-behind has not
+     * reached it yet, so code that consumes or releases it can work on reserved_quantity.
+     */
+    private void settleReserve(InventoryTransaction reserve) {
+        if (!Boolean.TRUE.equals(reserve.getReservedPending())) return;
+        if (inventoryTransactionRepository.clearReservedPending(reserve.getId()) == 1) {
+            applyStockChange(reserve.getInventory(), 0, reserve.getQuantity());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hotStockLedger.markApplied(1);
+                }
+            });
+        }
+        // Keep the managed row in step, it is saved again by the callers
+        reserve.setReservedPending(false);
+    }
+
+    public List<Map<String, Object>> getHotSkus() {
+        return hotStockLedger.hotVariantIds().stream()
+                .sorted()
+                .map(variantId -> Map.<String, Object>of(
+                        "variantId", variantId,
+                        "available", hotStockLedger.available(variantId)))
+                .toList();
+    }
+
+    public void enableHotSku(Long variantId) {
+        if (inventoryRepository.findByVariantId(variantId).isEmpty())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy hàng tồn kho!");
+        hotStockLedger.enable(variantId);
+    }
+
+    public void disableHotSku(Long variantId) {
+        if (!hotStockLedger.isHot(variantId))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sản phẩm không ở chế độ hot!");
+        hotStockLedger.disable(variantId);
+        // Journaled reservations already count against the rows in reserveIfAvailable;
+        // applying them now just brings reserved_quantity up to date
+        flushHotReservations();
+    }
+
     @Transactional
     public void releaseStock(String orderNumber, String reason, boolean changeToReservedQuantity) {
         List<InventoryTransaction> reserves = inventoryTransactionRepository
@@ -180,14 +402,14 @@ public class InventoryService {
 
         for (InventoryTransaction reserve : reserves) {
 
+            settleReserve(reserve);
             Inventory inv = reserve.getInventory();
             int quantity = reserve.getQuantity();
 
             if (changeToReservedQuantity) {
-                int newReserved = inv.getReservedQuantity() - quantity;
-                if (newReserved < 0) newReserved = 0;
-                inv.setReservedQuantity(newReserved);
-                inventoryRepository.save(inv);
+                inventoryRepository.releaseReserved(inv.getId(), quantity, OffsetDateTime.now());
+                em.refresh(inv);
+                hotStockLedger.reloadAfterCommit(inv.getVariantId());
                 webhookUtils.postToWebhook(inv.getId(), "update");
                 updateVariantStatusInternal(inv.getVariantId(),
                         inv.getQuantity() - (inv.getReservedQuantity() + quantity),
@@ -233,6 +455,7 @@ public class InventoryService {
                     if (reservedQty <= 0) {
                         continue;
                     }
+                    settleReserve(reserve);
                     int exportQty = Math.min(reservedQty, pending);
                     InventoryTransaction exportTransaction = InventoryTransaction.builder()
                             .code(generateTransactionCode("EXPORT"))
@@ -325,11 +548,16 @@ public class InventoryService {
             inventoryTransactionRepository.save(inventoryTransaction);
             transactions.add(inventoryTransaction);
             if ("EXPORT".equals(request.getTransactionType())) {
-                int available = inventory.getQuantity() - inventory.getReservedQuantity();
-                if (available < request.getQuantity()) {
+                if (hotStockLedger.isHot(inventory.getVariantId())) {
+                    // The ledger may have granted units the row does not show as reserved yet
+                    hotStockLedger.hold(inventory.getVariantId(), inventory.getId(), Math.abs(request.getQuantity()));
+                }
+                if (inventoryRepository.reserveIfAvailable(inventory.getId(), Math.abs(request.getQuantity()), OffsetDateTime.now()) == 0) {
                     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Số lượng sản phẩm trong kho không đủ!");
                 }
-                updateReservedQuantity(inventory.getId(), inventory.getReservedQuantity() + request.getQuantity());
+                em.refresh(inventory);
+                hotStockLedger.reloadAfterCommit(inventory.getVariantId());
+                refreshVariantStatus(inventory.getVariantId());
             }
 
         }
@@ -373,12 +601,11 @@ public class InventoryService {
                         throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Số lượng hàng trong kho không đủ!");
                     }
 
-                    inventory.setQuantity(newQuantity);
-                    inventory.setReservedQuantity(newReserved);
+                    applyStockChange(inventory, newQuantity - oldQuantity, newReserved - oldReserved);
                 }
                 case "IMPORT" -> {
                     newQuantity = oldQuantity + Math.abs(transaction.getQuantity());
-                    inventory.setQuantity(newQuantity);
+                    applyStockChange(inventory, newQuantity - oldQuantity, 0);
                     if ("PURCHASE_ORDER".equals(transaction.getReferenceType()) &&
                             transaction.getPricePerItem().compareTo(BigDecimal.ZERO) > 0) {
                         productServiceClient.updateVariantImportPrice(
@@ -393,7 +620,7 @@ public class InventoryService {
                     newQuantity = oldQuantity + transaction.getQuantity();
                     if (newQuantity < 0)
                         throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Số lượng hàng trong kho không đủ!");
-                    inventory.setQuantity(newQuantity);
+                    applyStockChange(inventory, newQuantity - oldQuantity, 0);
                 }
                 default ->
                         throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Loại giao dịch không hợp lệ! " + transaction.getTransactionType());
@@ -405,13 +632,12 @@ public class InventoryService {
                 newReserved = oldReserved - Math.abs(transaction.getQuantity());
                 if (newReserved < 0)
                     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Giao dịch không hợp lệ!");
-                inventory.setReservedQuantity(newReserved);
+                applyStockChange(inventory, 0, newReserved - oldReserved);
                 updateVariantStatusInternal(inventory.getVariantId(), oldQuantity - oldReserved, oldQuantity - newReserved);
             }
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Trạng thái giao dịch không hợp lệ!");
         }
-        inventoryRepository.save(inventory);
         webhookUtils.postToWebhook(inventory.getId(), "update");
 
         transaction.setNote(note);
@@ -692,71 +918,38 @@ public class InventoryService {
                 ? OffsetDateTime.now().withOffsetSameInstant(offset)
                 : to.atTime(LocalTime.MAX).atOffset(offset);
 
-        List<Inventory> inventories =
-                inventoryRepository.findAllByIsActiveAndWarehouseId(true, warehouseId);
+        List<InventoryQuantityChangeResponse> responses = new ArrayList<>();
+        List<Long> variantIds = new ArrayList<>();
+        try (Stream<InventoryTransactionRepository.QuantityChangeRow> rows =
+                     inventoryTransactionRepository.streamQuantityChanges(warehouseId, fromDate, toDate)) {
+            rows.forEach(row -> {
+                int totalImport = row.getTotalImport().intValue();
+                int totalExport = row.getTotalExport().intValue();
+                int totalAdjust = row.getTotalAdjust().intValue();
+                int startQuantity = row.getQuantity() - totalImport + totalExport + totalAdjust;
+
+                InventoryQuantityChangeResponse response =
+                        new InventoryQuantityChangeResponse(startQuantity, row.getQuantity(), null);
+                response.setTotalImport(totalImport);
+                response.setTotalExport(totalExport);
+                response.setTotalAdjust(totalAdjust);
+                response.setWarehouseCode(row.getWarehouseCode());
+                responses.add(response);
+                variantIds.add(row.getVariantId());
+            });
+        }
 
-        if (inventories.isEmpty()) {
+        if (responses.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy món hàng nào!");
         }
 
-        List<Long> ids = inventories.stream().map(Inventory::getId).toList();
-        List<InventoryTransaction> allTransactions =
-                inventoryTransactionRepository
-                        .findAllByInventoryIdsAndStatusAndUpdatedAtBetween(
-                                ids, "COMPLETED", fromDate, toDate);
-        List<Long> variantIds=inventories.stream().map(Inventory::getVariantId).toList();
-
-        List<VariantResponse> variantResponses=productServiceClient.getVariantsByIdsLimited(variantIds);
-        Map<Long, VariantResponse> variantMap = variantResponses.stream()
-                .collect(Collectors.toMap(VariantResponse::getId, v -> v));
-
-        Map<Long, List<InventoryTransaction>> grouped =
-                allTransactions.stream()
-                        .collect(Collectors.groupingBy(t -> t.getInventory().getId()));
-
-        List<InventoryQuantityChangeResponse> responses = new ArrayList<>();
-
-        for (Inventory inv : inventories) {
-            int currentQuantity = inv.getQuantity();
-            List<InventoryTransaction> tx =
-                    grouped.getOrDefault(inv.getId(), List.of());
-
-            int startQuantity = currentQuantity;
-
-            int totalImport = 0;
-            int totalExport = 0;
-            int totalAdjust = 0;
-
-            for (InventoryTransaction t : tx) {
-                int qty = t.getQuantity();
-                int delta = switch (t.getTransactionType()) {
-                    case "IMPORT" -> qty;
-                    case "EXPORT", "ADJUST" -> -qty;
-                    default -> 0;
-                };
-                startQuantity -= delta;
-                switch (t.getTransactionType()) {
-                    case "IMPORT" -> totalImport += qty;
-                    case "EXPORT" -> totalExport += qty;
-                    case "ADJUST" -> totalAdjust += qty;
-                }
-            }
-            int toQuantity = currentQuantity;
-
-            InventoryQuantityChangeResponse response =
-                    new InventoryQuantityChangeResponse(startQuantity, toQuantity, null);
-
-            response.setTotalImport(totalImport);
-            response.setTotalExport(totalExport);
-            response.setTotalAdjust(totalAdjust);
-            response.setWarehouseCode(inv.getWarehouse().getCode());
-            VariantResponse variantResponse = variantMap.get(inv.getVariantId());
-            if (variantResponse != null) {
-                response.setSku(variantResponse.getSku());
-                response.setName(variantResponse.getName());
+        Map<Long, VariantLabelCache.Label> labels = variantLabelCache.getAll(new HashSet<>(variantIds));
+        for (int i = 0; i < responses.size(); i++) {
+            VariantLabelCache.Label label = labels.get(variantIds.get(i));
+            if (label != null) {
+                responses.get(i).setSku(label.sku());
+                responses.get(i).setName(label.name());
             }
-
-            responses.add(response);
         }
 
         return responses;
@@ -801,6 +994,9 @@ public class InventoryService {
     }
 
     public Integer getAvailableQuantity(Long variantId) {
+        if (hotStockLedger.isHot(variantId)) {
+            return hotStockLedger.available(variantId);
+        }
         List<Inventory> inventories = inventoryRepository.findByVariantId(variantId);
         return inventories.stream()
                 .mapToInt(i -> i.getQuantity() - i.getReservedQuantity())
@@ -825,54 +1021,20 @@ public class InventoryService {
             case "ADJUST" -> prefix = "ADJ";
             default -> prefix = "PK";
         }
-        String datePart = OffsetDateTime.now().format(DateTimeFormatter.ofPattern("ddMMyyyy"));
-        OffsetDateTime startOfDay = OffsetDateTime.now().toLocalDate().atStartOfDay().atOffset(ZoneOffset.UTC);
-        OffsetDateTime endOfDay = startOfDay.plusDays(1);
-        long countToday = inventoryTransactionRepository.countByCreatedAtBetween(startOfDay, endOfDay);
-        return prefix + "-" + datePart + "-" + (countToday + 1);
+        return documentNumberGenerator.next(prefix, inventoryTransactionRepository::countByCreatedAtBetween);
     }
 
-    @Transactional
     private void updateVariantStatusInternal(Long variantId, int oldAvailable, int newAvailable) {
-        String oldStatus = getStatusFromAvailable(oldAvailable);
-        String newStatus = getStatusFromAvailable(newAvailable);
+        String oldStatus = VariantStatusPublisher.statusFromAvailable(oldAvailable);
+        String newStatus = VariantStatusPublisher.statusFromAvailable(newAvailable);
 
         if (!oldStatus.equals(newStatus)) {
-            productServiceClient.changeProductVariantStatus(variantId, newStatus);
+            variantStatusPublisher.publishAfterCommit(variantId);
         }
     }
 
-    @Transactional
     public void refreshVariantStatus(Long variantId) {
-        List<Inventory> inventories = inventoryRepository.findByVariantId(variantId);
-        if (inventories.isEmpty()) return;
-
-        int totalAvailable = inventories.stream()
-                .mapToInt(inv -> inv.getQuantity() - inv.getReservedQuantity())
-                .sum();
-
-        String newStatus = getStatusFromAvailable(totalAvailable);
-        productServiceClient.changeProductVariantStatus(variantId, newStatus);
-    }
-
-    @Transactional
-    public void updateReservedQuantity(Long inventoryId, int newReservedQuantity) {
-        Inventory inv = inventoryRepository.findById(inventoryId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy hàng tồn kho!"));
-
-        int oldReserved = inv.getReservedQuantity();
-        if (oldReserved == newReservedQuantity) return;
-        inv.setReservedQuantity(newReservedQuantity);
-        inventoryRepository.save(inv);
-
-        refreshVariantStatus(inv.getVariantId());
-    }
-
-
-    private String getStatusFromAvailable(int available) {
-        return available <= 0 ? "OUT_OF_STOCK"
-                : available <= 10 ? "LOW_STOCK"
-                : "AVAILABLE";
+        variantStatusPublisher.publishAfterCommit(variantId);
     }
 
     public Page<InventoryResponse> getInventoriesOrderByAvailableStock(Integer page, Integer size) {
@@ -13,6 +13,7 @@ import com.doan.inventory_service.repositories.PurchaseOrderRepository;
 import com.doan.inventory_service.repositories.SupplierRepository;
 import com.doan.inventory_service.repositories.WarehouseRepository;
 import com.doan.inventory_service.services.clients.ProductServiceClient;
+import com.doan.inventory_service.utils.DocumentNumberGenerator;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
@@ -30,8 +31,6 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -254,10 +253,6 @@ public class PurchaseOrderService {
         );
     }
     public String generatePurchaseOrderCode() {
-        String datePart = OffsetDateTime.now().format(DateTimeFormatter.ofPattern("ddMMyyyy"));
-        long countToday = purchaseOrderRepository.countByCreatedAtBetween(
-                OffsetDateTime.now().toLocalDate().atStartOfDay().atOffset(ZoneOffset.UTC),
-                OffsetDateTime.now().toLocalDate().plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC) );
-        return "NH-" + datePart + "-" + (countToday + 1);
+        return documentNumberGenerator.next("NH", purchaseOrderRepository::countByCreatedAtBetween);
     }
 }
@@ -0,0 +1,54 @@
+package com.doan.inventory_service.services;
+
+import com.doan.inventory_service.dtos.productVariant.VariantResponse;
+import com.doan.inventory_service.services.clients.ProductServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local copy of variant SKUs and names for reports, which only need the label of a variant.
+ * Missing or expired entries are fetched from product-service in one call per lookup; if that
+ * call fails, expired entries are still served and missing ones are left without a label.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VariantLabelCache {
+
+    private final ProductServiceClient productServiceClient;
+    private final Map<Long, Label> labels = new ConcurrentHashMap<>();
+
+    @Value("${inventory.variant-labels.ttl-ms:600000}")
+    private long ttlMs;
+
+    public record Label(String sku, String name, long loadedAt) {
+    }
+
+    public Map<Long, Label> getAll(Collection<Long> variantIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, Label> result = new HashMap<>();
+        Set<Long> stale = new HashSet<>();
+        for (Long variantId : variantIds) {
+            Label label = labels.get(variantId);
+            if (label != null) result.put(variantId, label);
+            if (label == null || now - label.loadedAt() > ttlMs) stale.add(variantId);
+        }
+        if (stale.isEmpty()) return result;
+
+        try {
+            for (VariantResponse variant : productServiceClient.getVariantsByIdsLimited(List.copyOf(stale))) {
+                Label label = new Label(variant.getSku(), variant.getName(), now);
+                labels.put(variant.getId(), label);
+                result.put(variant.getId(), label);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to load labels for {} variants: {}", stale.size(), ex.getMessage());
+        }
+        return result;
+    }
+}
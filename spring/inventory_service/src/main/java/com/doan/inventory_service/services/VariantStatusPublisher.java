@@ -0,0 +1,111 @@
+package com.doan.inventory_service.services;
+
+import com.doan.inventory_service.repositories.InventoryRepository;
+import com.doan.inventory_service.services.clients.ProductServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes variant stock statuses (OUT_OF_STOCK / LOW_STOCK / AVAILABLE) to product-service off the
+ * request path. Stock changes only mark a variant as changed once their transaction commits; the
+ * scheduled flush reads the variant's current availability and sends one status per variant in
+ * batches, so a burst of changes on a variant ends in a single update carrying its latest state.
+ * A failed batch is marked again and retried with a growing delay.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VariantStatusPublisher {
+
+    private final InventoryRepository inventoryRepository;
+    private final ProductServiceClient productServiceClient;
+    private final HotStockLedger hotStockLedger;
+    private final Set<Long> changedVariantIds = ConcurrentHashMap.newKeySet();
+
+    private int failures;
+    private long nextAttemptAt;
+
+    @Value("${inventory.variant-status.batch-size:200}")
+    private int batchSize;
+
+    @Value("${inventory.variant-status.retry-base-ms:1000}")
+    private long retryBaseMs;
+
+    @Value("${inventory.variant-status.retry-max-ms:60000}")
+    private long retryMaxMs;
+
+    public static String statusFromAvailable(long available) {
+        return available <= 0 ? "OUT_OF_STOCK"
+                : available <= 10 ? "LOW_STOCK"
+                : "AVAILABLE";
+    }
+
+    /**
+     * Marks the variant for the next flush once the current transaction commits,
+     * or right away when there is none. Nothing is sent if it rolls back.
+     */
+    public void publishAfterCommit(Long variantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changedVariantIds.add(variantId);
+                }
+            });
+        } else {
+            changedVariantIds.add(variantId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.variant-status.flush-interval-ms:500}")
+    public void flush() {
+        if (changedVariantIds.isEmpty() || System.currentTimeMillis() < nextAttemptAt) return;
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!changedVariantIds.isEmpty()) {
+            batch.clear();
+            Iterator<Long> it = changedVariantIds.iterator();
+            while (batch.size() < batchSize && it.hasNext()) {
+                Long variantId = it.next();
+                it.remove();
+                batch.add(variantId);
+            }
+            try {
+                send(batch);
+            } catch (RuntimeException ex) {
+                changedVariantIds.addAll(batch);
+                failures++;
+                long delay = Math.min(retryMaxMs, retryBaseMs << Math.min(failures - 1, 16));
+                nextAttemptAt = System.currentTimeMillis() + delay;
+                log.warn("Failed to push {} variant statuses (attempt {}), retrying in {} ms: {}",
+                        batch.size(), failures, delay, ex.getMessage());
+                return;
+            }
+        }
+        failures = 0;
+        nextAttemptAt = 0;
+    }
+
+    private void send(List<Long> variantIds) {
+        Map<Long, String> statusByVariant = new HashMap<>();
+        for (Object[] row : inventoryRepository.sumAvailableByVariantIds(variantIds)) {
+            statusByVariant.put((Long) row[0], statusFromAvailable(((Number) row[1]).longValue()));
+        }
+        // Hot variants are ahead of their rows until the write-behind catches up
+        for (Long variantId : variantIds) {
+            if (hotStockLedger.isHot(variantId)) {
+                statusByVariant.put(variantId, statusFromAvailable(hotStockLedger.available(variantId)));
+            }
+        }
+        if (!statusByVariant.isEmpty()) {
+            productServiceClient.changeProductVariantStatusBatch(statusByVariant);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -59,6 +60,14 @@ public class ProductServiceClient {
         }
     }
 
+    public void changeProductVariantStatusBatch(Map<Long, String> statusByVariant) {
+        try {
+            productVariantRepository.changeProductVariantStatusBatch(statusByVariant);
+        } catch (FeignException ex) {
+            throw parseFeignException(ex);
+        }
+    }
+
     public void updateVariantImportPrice(Long id,int oldQuantity,int newQuantity, BigDecimal importPrice) {
         try {
             productVariantRepository.updateVariantImportPrice(id, oldQuantity, newQuantity,importPrice);
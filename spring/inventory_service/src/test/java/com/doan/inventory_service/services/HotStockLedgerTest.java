@@ -0,0 +1,174 @@
+package com.doan.inventory_service.services;
+
+import com.doan.inventory_service.repositories.InventoryRepository;
+import com.doan.inventory_service.repositories.InventoryTransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HotStockLedgerTest {
+
+    private static final Long VARIANT = 7L;
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final InventoryTransactionRepository inventoryTransactionRepository = mock(InventoryTransactionRepository.class);
+    private HotStockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new HotStockLedger(inventoryRepository, inventoryTransactionRepository,
+                mock(PlatformTransactionManager.class));
+        // Row 1: 10 units, 2 reserved; row 2: 5 units, nothing reserved
+        stockRows(new Object[]{1L, 100L, 10, 2}, new Object[]{2L, 200L, 5, 0});
+        journaled();
+        ledger.enable(VARIANT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reservesRowsInIdOrder() {
+        List<HotStockLedger.Grant> grants = inTransaction(true, () -> ledger.reserve(VARIANT, 10));
+
+        assertEquals(List.of(new HotStockLedger.Grant(1L, 100L, 8), new HotStockLedger.Grant(2L, 200L, 2)), grants);
+        assertEquals(3, ledger.available(VARIANT));
+    }
+
+    @Test
+    void rollbackGivesUnitsBack() {
+        inTransaction(false, () -> ledger.reserve(VARIANT, 10));
+
+        assertEquals(13, ledger.available(VARIANT));
+    }
+
+    @Test
+    void refusesMoreThanAvailable() {
+        assertThrows(ResponseStatusException.class, () -> inTransaction(true, () -> ledger.reserve(VARIANT, 14)));
+        assertEquals(13, ledger.available(VARIANT));
+    }
+
+    @Test
+    void reloadDuringTransactionKeepsInFlightUnits() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.reserve(VARIANT, 4);
+        List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Another transaction's change reloads the variant before this one commits
+        ledger.reloadAfterCommit(VARIANT);
+        assertEquals(9, ledger.available(VARIANT));
+
+        pending.forEach(TransactionSynchronization::afterCommit);
+        pending.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        journaled(new Object[]{1L, 4L});
+        ledger.reloadAfterCommit(VARIANT);
+        assertEquals(9, ledger.available(VARIANT));
+    }
+
+    @Test
+    void journaledRowsCountAfterRestart() {
+        journaled(new Object[]{1L, 6L});
+        HotStockLedger restarted = new HotStockLedger(inventoryRepository, inventoryTransactionRepository,
+                mock(PlatformTransactionManager.class));
+        restarted.enable(VARIANT);
+
+        assertEquals(7, restarted.available(VARIANT));
+    }
+
+    @Test
+    void holdRefusesUnitsAlreadyGranted() {
+        inTransaction(true, () -> ledger.reserve(VARIANT, 8));
+
+        // Row 1 still shows 8 free units in the database, but the ledger has granted all of them
+        assertThrows(ResponseStatusException.class, () -> inTransaction(true, () -> {
+            ledger.hold(VARIANT, 1L, 1);
+            return null;
+        }));
+        inTransaction(true, () -> {
+            ledger.hold(VARIANT, 2L, 5);
+            return null;
+        });
+        assertEquals(0, ledger.available(VARIANT));
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger granted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean commit = i % 5 != 0;
+            futures.add(executor.submit(() -> {
+                try {
+                    inTransaction(commit, () -> ledger.reserve(VARIANT, 1));
+                    if (commit) granted.incrementAndGet();
+                } catch (ResponseStatusException ignored) {
+                    // Sold out
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Rolled-back grants come back, so every unit is either committed once or still available
+        assertTrue(granted.get() <= 13);
+        assertEquals(13, granted.get() + ledger.available(VARIANT));
+    }
+
+    private <T> T inTransaction(boolean commit, Callable<T> work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            T result;
+            try {
+                result = work.call();
+            } catch (RuntimeException ex) {
+                complete(false);
+                throw ex;
+            } catch (Exception ex) {
+                complete(false);
+                throw new IllegalStateException(ex);
+            }
+            complete(commit);
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void complete(boolean commit) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (commit) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+        synchronizations.forEach(sync -> sync.afterCompletion(status));
+    }
+
+    private void stockRows(Object[]... rows) {
+        when(inventoryRepository.findStockRowsByVariantId(VARIANT)).thenReturn(List.of(rows));
+    }
+
+    private void journaled(Object[]... rows) {
+        when(inventoryTransactionRepository.sumReservedPendingByVariantId(VARIANT)).thenReturn(List.of(rows));
+    }
+}
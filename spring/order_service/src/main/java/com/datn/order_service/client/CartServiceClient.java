@@ -4,6 +4,8 @@ import com.datn.order_service.dto.response.ApiResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @FeignClient(name = "cart-service")
 public interface CartServiceClient {
 
@@ -15,4 +17,9 @@ public interface CartServiceClient {
             @RequestHeader("X-Owner-Id") Long customerId,
             @PathVariable("variantId") Long variantId);
 
+    @DeleteMapping("/internal/customer/variants")
+    ApiResponse<Integer> removeCartItems(
+            @RequestHeader("X-Owner-Id") Long customerId,
+            @RequestParam("variantIds") List<Long> variantIds);
+
 }
\ No newline at end of file
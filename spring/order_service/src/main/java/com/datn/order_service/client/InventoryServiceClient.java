@@ -2,6 +2,7 @@ package com.datn.order_service.client;
 
 import com.datn.order_service.client.dto.request.OrderTransactionRequest;
 import com.datn.order_service.client.dto.request.ReleaseStockRequest;
+import com.datn.order_service.client.dto.request.ReserveStockBatchRequest;
 import com.datn.order_service.client.dto.request.ReserveStockRequest;
 import com.datn.order_service.dto.response.ApiResponse;
 import org.springframework.cloud.openfeign.FeignClient;
@@ -16,6 +17,9 @@ public interface InventoryServiceClient {
     @PostMapping("/internal/transactions/reserve")
     ApiResponse<Map<Long,Integer>> reserveStock(@RequestBody ReserveStockRequest request);
 
+    @PostMapping("/internal/transactions/reserve/batch")
+    ApiResponse<List<Map<Long,Integer>>> reserveStockBatch(@RequestBody ReserveStockBatchRequest request);
+
     @PostMapping("/internal/transactions/reserve/{orderNumber}")
     ApiResponse<Void> releaseStock(@PathVariable String orderNumber,@RequestBody ReleaseStockRequest request);
 
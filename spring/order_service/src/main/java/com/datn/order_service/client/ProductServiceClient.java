@@ -1,11 +1,13 @@
 package com.datn.order_service.client;
 
 import com.datn.order_service.client.dto.VariantDTO;
+import com.datn.order_service.client.dto.VariantPriceDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 
 @FeignClient(name = "product-service")
@@ -14,9 +16,18 @@ public interface ProductServiceClient {
     @GetMapping("/internal/variants/{id}/active")
     ResponseEntity<VariantDTO> getVariant(@PathVariable("id") Long id);
 
+    @GetMapping("/internal/variants")
+    List<VariantDTO> getVariantByIds(@RequestParam("ids") List<Long> ids);
+
+    @GetMapping("/internal/variants/prices")
+    List<VariantPriceDTO> getVariantPrices(@RequestParam("ids") List<Long> ids);
+
     @PostMapping("/internal/variants/{id}/sold")
     void updateVariantSold(
             @PathVariable Long id,
             @RequestParam int num
     );
+
+    @PostMapping("/internal/variants/sold")
+    void updateVariantSoldBatch(@RequestBody Map<Long, Integer> soldByVariant);
 }
\ No newline at end of file
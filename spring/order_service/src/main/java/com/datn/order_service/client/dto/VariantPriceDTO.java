@@ -0,0 +1,18 @@
+package com.datn.order_service.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariantPriceDTO {
+    private Long id;
+    private BigDecimal sellingPrice;
+    private BigDecimal importPrice;
+    private Boolean isActive;
+    private String status;
+}
@@ -0,0 +1,19 @@
+package com.datn.order_service.client.dto.request;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockBatchRequest {
+
+    @NotNull(message = "Order number is required")
+    private String orderNumber;
+
+    @NotEmpty(message = "Items are required")
+    private List<ReserveStockItemRequest> items;
+}
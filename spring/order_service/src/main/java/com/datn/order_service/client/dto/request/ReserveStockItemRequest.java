@@ -0,0 +1,18 @@
+package com.datn.order_service.client.dto.request;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockItemRequest {
+
+    @NotNull(message = "Variant ID is required")
+    private Long variantId;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+}
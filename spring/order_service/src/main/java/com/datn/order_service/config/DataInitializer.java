@@ -2,6 +2,7 @@ package com.datn.order_service.config;
 
 import com.datn.order_service.entity.OrderStatus;
 import com.datn.order_service.repository.OrderStatusRepository;
+import com.datn.order_service.service.OrderStatusRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -13,6 +14,7 @@ import java.util.List;
 public class DataInitializer implements CommandLineRunner {
 
     private final OrderStatusRepository orderStatusRepository;
+    private final OrderStatusRegistry orderStatusRegistry;
 
     @Override
     public void run(String... args) {
@@ -29,5 +31,6 @@ public class DataInitializer implements CommandLineRunner {
             );
             orderStatusRepository.saveAll(statuses);
         }
+        orderStatusRegistry.reload();
     }
 }
\ No newline at end of file
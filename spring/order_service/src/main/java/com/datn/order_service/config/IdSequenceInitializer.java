@@ -0,0 +1,45 @@
+package com.datn.order_service.config;
+
+import com.datn.order_service.utils.OrderIdAllocator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the pooled id sequences and moves them past ids that were generated by the
+ * old IDENTITY columns. Runs after Hibernate has updated the schema and before any insert.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequences() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + OrderIdAllocator.SEQUENCE_NAME
+                + " START WITH " + OrderIdAllocator.BLOCK_SIZE + " INCREMENT BY " + OrderIdAllocator.BLOCK_SIZE);
+        alignSequence(OrderIdAllocator.SEQUENCE_NAME, "orders");
+        alignSequence("order_items_seq", "order_items");
+    }
+
+    private void alignSequence(String sequence, String table) {
+        int blockSize = OrderIdAllocator.BLOCK_SIZE;
+        // The next block is [next - blockSize + 1, next]; restart it right after MAX(id) if it would overlap
+        Long aligned = jdbcTemplate.query("""
+                        SELECT setval('%1$s', m.max_id)
+                        FROM (SELECT MAX(id) AS max_id FROM %2$s) m, %1$s s
+                        WHERE m.max_id IS NOT NULL
+                          AND (CASE WHEN s.is_called THEN s.last_value + %3$d ELSE s.last_value END) - %3$d < m.max_id
+                        """.formatted(sequence, table, blockSize),
+                rs -> rs.next() ? rs.getLong(1) : null);
+        if (aligned != null) {
+            log.info("Sequence {} moved past existing {} ids (max id {})", sequence, table, aligned);
+        }
+    }
+}
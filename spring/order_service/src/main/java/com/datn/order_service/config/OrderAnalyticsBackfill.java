@@ -0,0 +1,41 @@
+package com.datn.order_service.config;
+
+import com.datn.order_service.repository.OrderRepository;
+import com.datn.order_service.service.OrderAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Fills the dashboard rollup tables and customer_order_stats from order history the
+ * first time the service starts with them empty. Later repairs go through the rebuild endpoints.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderAnalyticsBackfill implements CommandLineRunner {
+
+    private final OrderAnalyticsService orderAnalyticsService;
+    private final OrderRepository orderRepository;
+
+    @Override
+    public void run(String... args) {
+        if (orderAnalyticsService.isCustomerStatsEmpty()) {
+            log.info("Customer order stats are empty, rebuilding from orders");
+            orderAnalyticsService.rebuildCustomerStats();
+        }
+        if (!orderAnalyticsService.isEmpty()) {
+            return;
+        }
+        OffsetDateTime firstOrderDate = orderRepository.findFirstOrderDate();
+        if (firstOrderDate == null) {
+            return;
+        }
+        log.info("Order rollups are empty, backfilling from {}", firstOrderDate);
+        orderAnalyticsService.rebuild(OrderAnalyticsService.toDay(firstOrderDate), LocalDate.now());
+    }
+}
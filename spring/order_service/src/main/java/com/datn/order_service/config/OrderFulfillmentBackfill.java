@@ -0,0 +1,33 @@
+package com.datn.order_service.config;
+
+import com.datn.order_service.repository.OrderFulfillmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates order_fulfillments rows for orders that predate the table, then drops the
+ * GIN index the warehouse filter used to scan, since that filter now reads fulfillments.
+ * The insert skips orders that already have rows, so restarts are cheap.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderFulfillmentBackfill implements CommandLineRunner {
+
+    private final OrderFulfillmentRepository orderFulfillmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        int rows = orderFulfillmentRepository.backfillFromOrders();
+        if (rows > 0) {
+            log.info("Backfilled {} order fulfillment rows", rows);
+        }
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_orders_warehouse_data");
+    }
+}
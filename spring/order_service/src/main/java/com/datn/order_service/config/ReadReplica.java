@@ -0,0 +1,17 @@
+package com.datn.order_service.config;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks reporting reads that may run on the read replica: a read-only transaction, which
+ * {@link ReplicaRoutingDataSource} sends to the replica pool while the replica is fresh.
+ * Joining an outer read-write transaction keeps the work on the primary.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadReplica {
+}
@@ -0,0 +1,72 @@
+package com.datn.order_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Splits reads off the primary when order.datasource.replica.url is set: {@link ReadReplica}
+ * and other read-only transactions use a separate replica pool, so reports cannot take the
+ * primary's few connections away from checkouts. Without a replica url Boot's single
+ * datasource is used unchanged.
+ */
+@Configuration
+@ConditionalOnExpression("'${order.datasource.replica.url:}' != ''")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("order.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${order.datasource.replica.url}") String url,
+                                              @Value("${order.datasource.replica.username:}") String username,
+                                              @Value("${order.datasource.replica.password:}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.getDriverClassName())
+                .url(url)
+                .username(username.isBlank() ? properties.getUsername() : username)
+                .password(password.isBlank() ? properties.getPassword() : password)
+                .build();
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${order.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+                                               @Value("${order.datasource.replica.lag-check-interval-ms:2000}") long checkIntervalMs,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replica, maxLagSeconds, checkIntervalMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, replicaLagMonitor));
+        // Hikari defaults; set here so the proxy does not borrow a connection at startup to read them
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
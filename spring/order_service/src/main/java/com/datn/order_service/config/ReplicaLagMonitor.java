@@ -0,0 +1,75 @@
+package com.datn.order_service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the replica's replay delay. The replica is only used while the last check succeeded,
+ * ran within the last few check intervals, and found the delay within
+ * order.datasource.replica.max-lag-seconds; until the first check, when the replica is
+ * unreachable, or when checks stop running, reads stay on the primary.
+ * The delay is published as the order.datasource.replica.lag_ms gauge (-1 when unknown).
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // A replica that has replayed everything it received is current, however old its last replayed commit
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    // A result older than this many intervals no longer says anything about the replica
+    private static final int STALE_AFTER_CHECKS = 3;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+    private final long staleAfterNanos;
+    private final AtomicLong lagMs = new AtomicLong(-1);
+    private volatile boolean usable;
+    private volatile long lastSuccessNanos;
+
+    public ReplicaLagMonitor(DataSource replica, long maxLagSeconds, long checkIntervalMs, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.replicaJdbcTemplate.setQueryTimeout(2);
+        this.maxLagMs = maxLagSeconds * 1000;
+        this.staleAfterNanos = TimeUnit.MILLISECONDS.toNanos(STALE_AFTER_CHECKS * checkIntervalMs);
+        meterRegistry.gauge("order.datasource.replica.lag_ms", lagMs);
+    }
+
+    public boolean isUsable() {
+        return usable && System.nanoTime() - lastSuccessNanos <= staleAfterNanos;
+    }
+
+    @Scheduled(fixedDelayString = "${order.datasource.replica.lag-check-interval-ms:2000}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Number.class);
+            long current = lag != null ? lag.longValue() : 0L;
+            lagMs.set(current);
+            lastSuccessNanos = System.nanoTime();
+            usable = current <= maxLagMs;
+        } catch (Exception e) {
+            lagMs.set(-1);
+            usable = false;
+            if (wasUsable) {
+                log.warn("Replica lag check failed, reading from primary: {}", e.getMessage());
+            }
+        }
+        if (wasUsable && !usable) {
+            log.warn("Replica is {} ms behind, reading from primary", lagMs.get());
+        } else if (!wasUsable && usable) {
+            log.info("Replica caught up ({} ms), routing read-only work to it", lagMs.get());
+        }
+    }
+}
@@ -1,19 +1,55 @@
 package com.datn.order_service.config;
 
+import com.datn.order_service.utils.OrderEventPublisher;
+import com.datn.order_service.utils.PaymentResultRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String OWNER_ID_ATTR = "ownerId";
+    private static final String ROLE_ATTR = "role";
+    private static final String WAREHOUSE_ID_ATTR = "warehouseId";
+    private static final Pattern ID_PATTERN = Pattern.compile("\\d+");
+    private static final List<String> CUSTOMER_TOPIC_PREFIXES = List.of(
+            OrderEventPublisher.CUSTOMER_TOPIC_PREFIX, PaymentResultRegistry.TOPIC_PREFIX);
+
     @Value("${FRONTEND_URL}")
     private String frontendUrl;
 
+    @Value("${order.events.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${order.events.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${order.events.outbound-queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
@@ -24,7 +60,116 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns(frontendUrl)
+                .addInterceptors(new GatewayIdentityHandshakeInterceptor())
                 .withSockJS()
                 .setSessionCookieNeeded(true);
     }
+
+    /**
+     * A session that stops reading is closed once its pending frames exceed the time or
+     * buffer limit, instead of letting its queue grow in the broker.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs);
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(4)
+                .maxPoolSize(8)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new CustomerTopicSubscriptionInterceptor());
+    }
+
+    /**
+     * Keeps the identity headers added by the gateway on the websocket session.
+     */
+    private static class GatewayIdentityHandshakeInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            String ownerId = request.getHeaders().getFirst("X-Owner-Id");
+            String role = request.getHeaders().getFirst("X-User-Role");
+            String warehouseId = request.getHeaders().getFirst("X-Warehouse-Id");
+            if (ownerId != null) {
+                attributes.put(OWNER_ID_ATTR, ownerId);
+            }
+            if (role != null) {
+                attributes.put(ROLE_ATTR, role);
+            }
+            if (warehouseId != null) {
+                attributes.put(WAREHOUSE_ID_ATTR, warehouseId);
+            }
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
+    }
+
+    /**
+     * Only the exact destinations the server publishes to can be subscribed to, so broker
+     * patterns such as /topic/orders/** are refused. The all-orders topic is for ADMIN and
+     * MANAGER; STAFF subscribe to their own warehouse's topic; customers may only subscribe
+     * to their own order and payment topics.
+     */
+    private static class CustomerTopicSubscriptionInterceptor implements ChannelInterceptor {
+
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+            if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+                return message;
+            }
+            String destination = accessor.getDestination();
+            Map<String, Object> attributes = accessor.getSessionAttributes();
+            Object role = attributes != null ? attributes.get(ROLE_ATTR) : null;
+            Object ownerId = attributes != null ? attributes.get(OWNER_ID_ATTR) : null;
+            Object warehouseId = attributes != null ? attributes.get(WAREHOUSE_ID_ATTR) : null;
+            boolean admin = "ADMIN".equals(role) || "MANAGER".equals(role);
+
+            if (OrderEventPublisher.TOPIC.equals(destination)) {
+                if (admin) {
+                    return message;
+                }
+                throw new MessageDeliveryException("Không có quyền theo dõi tất cả đơn hàng!");
+            }
+            String warehouseTopicId = idAfter(destination, OrderEventPublisher.WAREHOUSE_TOPIC_PREFIX);
+            if (warehouseTopicId != null) {
+                if (admin || ("STAFF".equals(role) && Objects.equals(warehouseId, warehouseTopicId))) {
+                    return message;
+                }
+                throw new MessageDeliveryException("Không có quyền theo dõi đơn hàng của kho này!");
+            }
+            for (String prefix : CUSTOMER_TOPIC_PREFIXES) {
+                String customerId = idAfter(destination, prefix);
+                if (customerId != null) {
+                    if (admin || ("CUSTOMER".equals(role) && Objects.equals(ownerId, customerId))) {
+                        return message;
+                    }
+                    throw new MessageDeliveryException("Không có quyền theo dõi đơn hàng của khách hàng khác!");
+                }
+            }
+            throw new MessageDeliveryException("Kênh theo dõi không hợp lệ!");
+        }
+
+        // The id in {prefix}{id}, or null when the destination is anything else
+        private String idAfter(String destination, String prefix) {
+            if (destination == null || !destination.startsWith(prefix)) {
+                return null;
+            }
+            String id = destination.substring(prefix.length());
+            return ID_PATTERN.matcher(id).matches() ? id : null;
+        }
+    }
 }
@@ -6,10 +6,13 @@ import com.datn.order_service.dto.request.*;
 import com.datn.order_service.dto.response.*;
 import com.datn.order_service.dto.response.dashboard.OrderDashboardResponse;
 import com.datn.order_service.enums.PaymentStatus;
+import com.datn.order_service.service.CheckoutQuoteService;
+import com.datn.order_service.service.OrderAnalyticsService;
 import com.datn.order_service.service.OrderDashboardService;
 import com.datn.order_service.service.OrderService;
 import com.datn.order_service.service.PaymentService;
 import com.datn.order_service.service.cloud.CloudinaryService;
+import com.datn.order_service.utils.IdempotencyStore;
 import feign.FeignException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -17,6 +20,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,11 +30,18 @@ import java.time.*;
 import java.time.format.DateTimeParseException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("")
@@ -39,7 +51,12 @@ public class OrderController {
     private final OrderService orderService;
     private final PaymentService paymentService;
     private final OrderDashboardService dashboardService;
+    private final OrderAnalyticsService orderAnalyticsService;
+    private final CheckoutQuoteService checkoutQuoteService;
+    private final IdempotencyStore idempotencyStore;
     private final AuthServiceClient authServiceClient;
+    private static final String EXPORT_PERMIT_INTERCEPTOR = OrderController.class.getName() + ".exportPermit";
+    private final Semaphore exportPermits = new Semaphore(1);
     /**
      * Mua từ cart
      */
@@ -48,8 +65,15 @@ public class OrderController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> checkoutFromCart(
             @RequestHeader("X-Account-Id") Long accountId,
             @RequestHeader("X-Owner-Id") Long customerId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequest request,
             HttpServletRequest httpRequest) {
+        return idempotencyStore.execute("checkout", customerId, idempotencyKey,
+                () -> placeCartOrder(accountId, customerId, request, httpRequest));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> placeCartOrder(
+            Long accountId, Long customerId, CreateOrderRequest request, HttpServletRequest httpRequest) {
         try {
             Boolean verified = authServiceClient.checkAccountIsVerified(accountId).getBody();
             if (verified != null && !verified) {
@@ -103,6 +127,18 @@ public class OrderController {
         ));
     }
 
+    /**
+     * Báo giá trước khi đặt hàng: trả về quoteId dùng cho /checkout hoặc /buy-now
+     */
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @PostMapping("/checkout/quote")
+    public ResponseEntity<ApiResponse<CheckoutQuoteResponse>> createCheckoutQuote(
+            @RequestHeader("X-Owner-Id") Long customerId,
+            @Valid @RequestBody CheckoutQuoteRequest request) {
+        CheckoutQuoteResponse response = checkoutQuoteService.createQuote(customerId, request);
+        return ResponseEntity.ok(new ApiResponse<>("Tạo báo giá thành công!", true, response));
+    }
+
     /**
      * Mua ngay
      */
@@ -110,8 +146,15 @@ public class OrderController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> buyNow(
             @RequestHeader("X-Owner-Id") Long customerId,
             @RequestHeader("X-Account-Id") Long accountId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody BuyNowRequest request,
             HttpServletRequest httpRequest) {
+        return idempotencyStore.execute("buy-now", customerId, idempotencyKey,
+                () -> placeBuyNowOrder(accountId, customerId, request, httpRequest));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> placeBuyNowOrder(
+            Long accountId, Long customerId, BuyNowRequest request, HttpServletRequest httpRequest) {
         try {
             Boolean verified = authServiceClient.checkAccountIsVerified(accountId).getBody();
             if (verified != null && !verified) {
@@ -218,7 +261,10 @@ public class OrderController {
             @RequestParam(required = false) String endDate,
             @RequestHeader("X-User-Role") String role,
             @RequestParam(required = false) Long warehouseId,
-            @RequestParam(required = false) Boolean sortByDeliveredDate) {
+            @RequestParam(required = false) Boolean sortByDeliveredDate,
+            @RequestParam(required = false) Boolean keyset,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean approximateTotal) {
         try {
                 LocalDate start = null;
             LocalDate end = null;
@@ -236,15 +282,81 @@ public class OrderController {
                     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ngày kết thúc không hợp lệ!");
                 }
             }
+            boolean showRevenue = Objects.equals(role, "ADMIN") || Objects.equals(role, "MANAGER");
+            if (Boolean.TRUE.equals(keyset)) {
+                CursorPageResponse<OrderResponse> orders = orderService.getOrdersAdvancedKeyset(cursor, size, status,
+                        keyword, start, end, showRevenue, warehouseId,
+                        sortByDeliveredDate != null ? sortByDeliveredDate : false,
+                        Boolean.TRUE.equals(approximateTotal));
+                return ResponseEntity.ok(new ApiResponse<>("Lấy dữ liệu đơn hàng thành công!", true, orders));
+            }
             Page<OrderResponse> orders = orderService.getOrdersAdvanced(page, size, status,keyword,
-                    start, end, Objects.equals(role, "ADMIN") || Objects.equals(role, "MANAGER"),warehouseId,
-                    sortByDeliveredDate!=null?sortByDeliveredDate:false);
+                    start, end, showRevenue,warehouseId,
+                    sortByDeliveredDate!=null?sortByDeliveredDate:false,
+                    Boolean.TRUE.equals(approximateTotal));
             return ResponseEntity.ok(new ApiResponse<>("Lấy dữ liệu đơn hàng thành công!", true, orders));
         } catch (ResponseStatusException ex) {
             return ResponseEntity.status(ex.getStatusCode()).body(new ApiResponse<>(ex.getReason(), false, null));
         }
     }
 
+    /**
+     * Xuất đơn hàng dạng CSV hoặc NDJSON, ghi trực tiếp ra response theo từng lô
+     */
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('STAFF')")
+    @GetMapping("/secure/orders/export")
+    public ResponseEntity<?> exportOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long warehouseId,
+            @RequestParam(required = false) Boolean sortByDeliveredDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader("X-User-Role") String role,
+            HttpServletRequest request) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("Định dạng xuất không hợp lệ!", false, null));
+        }
+        // Each export holds a database connection for its whole duration; the pool is small
+        if (!exportPermits.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new ApiResponse<>("Đang có yêu cầu xuất dữ liệu khác, vui lòng thử lại sau!", false, null));
+        }
+        // Released once, by whichever comes first: the body finishing or the async request
+        // ending without it (rejected task, timeout, client disconnect)
+        AtomicBoolean permitHeld = new AtomicBoolean(true);
+        Runnable releasePermit = () -> {
+            if (permitHeld.compareAndSet(true, false)) {
+                exportPermits.release();
+            }
+        };
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_PERMIT_INTERCEPTOR,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        releasePermit.run();
+                    }
+                });
+        boolean showRevenue = Objects.equals(role, "ADMIN") || Objects.equals(role, "MANAGER");
+        StreamingResponseBody body = out -> {
+            try {
+                orderService.exportOrders(status, keyword, startDate, endDate, warehouseId,
+                        Boolean.TRUE.equals(sortByDeliveredDate), showRevenue, ndjson, out);
+            } finally {
+                releasePermit.run();
+            }
+        };
+        String fileName = "orders-" + LocalDate.now() + (ndjson ? ".ndjson" : ".csv");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(ndjson
+                        ? MediaType.parseMediaType("application/x-ndjson")
+                        : MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .body(body);
+    }
+
     @GetMapping("/internal/recommend")
     public ResponseEntity<?> getOrdersDetailsAdvanced(
             @RequestParam(required = false) Integer page,
@@ -428,6 +540,32 @@ public class OrderController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Tính lại bảng tổng hợp dashboard cho khoảng ngày (dùng khi cần bù dữ liệu lịch sử)
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/secure/dashboard/rebuild")
+    public ResponseEntity<ApiResponse<Void>> rebuildDashboard(
+            @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end
+    ) {
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ngày bắt đầu phải trước ngày kết thúc!");
+        }
+        orderAnalyticsService.rebuild(start, end);
+        return ResponseEntity.ok(new ApiResponse<>("Tính lại dữ liệu thống kê thành công!", true, null));
+    }
+
+    /**
+     * Tính lại thống kê đơn hàng theo khách hàng
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/secure/customer-stats/rebuild")
+    public ResponseEntity<ApiResponse<Void>> rebuildCustomerStats() {
+        orderAnalyticsService.rebuildCustomerStats();
+        return ResponseEntity.ok(new ApiResponse<>("Tính lại thống kê khách hàng thành công!", true, null));
+    }
+
     /**
      * Get client IP address
      */
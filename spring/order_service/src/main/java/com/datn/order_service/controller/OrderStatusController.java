@@ -2,9 +2,10 @@ package com.datn.order_service.controller;
 
 import com.datn.order_service.dto.response.ApiResponse;
 import com.datn.order_service.entity.OrderStatus;
-import com.datn.order_service.repository.OrderStatusRepository;
+import com.datn.order_service.service.OrderStatusRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,12 +15,22 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderStatusController {
 
-    private final OrderStatusRepository orderStatusRepository;
+    private final OrderStatusRegistry orderStatusRegistry;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<OrderStatus>>> getAllStatuses() {
-        List<OrderStatus> statuses = orderStatusRepository.findAll();
+        List<OrderStatus> statuses = orderStatusRegistry.findAll();
         return ResponseEntity.ok(new ApiResponse<>("Lấy tất cả trạng thái đơn hàng thành công!", true, statuses));
     }
 
+    /**
+     * Nạp lại danh sách trạng thái sau khi bảng order_statuses được sửa trực tiếp
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/reload")
+    public ResponseEntity<ApiResponse<List<OrderStatus>>> reloadStatuses() {
+        orderStatusRegistry.reload();
+        return ResponseEntity.ok(new ApiResponse<>("Nạp lại trạng thái đơn hàng thành công!", true, orderStatusRegistry.findAll()));
+    }
+
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.datn.order_service.entity.Order;
 import com.datn.order_service.exception.OrderNotFoundException;
 import com.datn.order_service.repository.OrderRepository;
 import com.datn.order_service.service.PaymentService;
+import com.datn.order_service.utils.PaymentResultRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -31,13 +32,16 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final OrderRepository orderRepository;
+    private final PaymentResultRegistry paymentResultRegistry;
     private final String webUrl;
 
     public PaymentController(PaymentService paymentService,
                              OrderRepository orderRepository,
+                             PaymentResultRegistry paymentResultRegistry,
                              @Value("${web.url}") String webUrl) {
         this.paymentService = paymentService;
         this.orderRepository = orderRepository;
+        this.paymentResultRegistry = paymentResultRegistry;
         this.webUrl = webUrl;
     }
 
@@ -159,17 +163,10 @@ public class PaymentController {
         log.info("Checking payment status for order: {}", orderNumber);
 
         try {
-            // Lấy thông tin order từ database
-            Order order = orderRepository.findByOrderNumber(orderNumber)
-                    .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderNumber));
-
-            Map<String, Object> paymentInfo = new HashMap<>();
-            paymentInfo.put("orderNumber", order.getOrderNumber());
-            paymentInfo.put("paymentStatus", order.getPaymentStatus().name());
-            paymentInfo.put("paymentMethod", order.getPaymentMethod());
-            paymentInfo.put("totalAmount", order.getTotalAmount());
-            paymentInfo.put("orderStatus", order.getStatus().getName());
-            paymentInfo.put("createdAt", order.getCreatedAt());
+            // Kết quả mới nhất trong bộ nhớ, chỉ đọc database khi chưa có hoặc đã cũ
+            Map<String, Object> paymentInfo = paymentResultRegistry.find(orderNumber)
+                    .orElseGet(() -> paymentResultRegistry.remember(orderRepository.findByOrderNumber(orderNumber)
+                            .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderNumber))));
 
             return ResponseEntity.ok(new ApiResponse<>(
                     "Lấy trạng thái thanh toán thành công!",
@@ -0,0 +1,32 @@
+package com.datn.order_service.dto;
+
+import com.datn.order_service.client.dto.VariantDTO;
+import com.datn.order_service.dto.request.OrderItemRequest;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side state of a checkout quote, kept in Redis until it expires or is redeemed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutQuote {
+    private String quoteId;
+    private Long customerId;
+    private List<OrderItemRequest> items;
+    private Map<Long, VariantDTO> variants;
+    private BigDecimal subtotal;
+    private String promotionCode;
+    private Long promotionId;
+    private BigDecimal discountAmount;
+    private OffsetDateTime expiresAt;
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -11,4 +13,7 @@ public class OrderEvent {
     private String event;
     private Long orderId;
     private String status;
+    // Routing keys for the per-customer and per-warehouse destinations
+    private Long customerId;
+    private List<Long> warehouseIds;
 }
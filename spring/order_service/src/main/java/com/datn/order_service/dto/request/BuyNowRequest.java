@@ -40,4 +40,7 @@ public class BuyNowRequest {
 
     private String promotionCode;
     private String notes;
+
+    // Optional id from POST /checkout/quote; lets the order skip full price and promotion validation
+    private String quoteId;
 }
\ No newline at end of file
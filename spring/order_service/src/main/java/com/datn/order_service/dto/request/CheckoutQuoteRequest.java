@@ -0,0 +1,21 @@
+package com.datn.order_service.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutQuoteRequest {
+    @NotEmpty(message = "Order items cannot be empty")
+    private List<@Valid OrderItemRequest> items;
+
+    private String promotionCode;
+}
@@ -36,5 +36,8 @@ public class    CreateOrderRequest {
 
     private String notes;
 
+    // Optional id from POST /checkout/quote; lets the order skip full price and promotion validation
+    private String quoteId;
+
     private Boolean clearCart;
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.datn.order_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutQuoteResponse {
+    // Send back as "quoteId" on /checkout or /buy-now before expiresAt
+    private String quoteId;
+    private List<Line> lines;
+    private BigDecimal subtotal;
+    private BigDecimal discountAmount;
+    private BigDecimal totalAmount;
+    private String promotionCode;
+    private OffsetDateTime expiresAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long variantId;
+        private String name;
+        private String sku;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal totalPrice;
+    }
+}
@@ -0,0 +1,22 @@
+package com.datn.order_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Pass back as "cursor" to fetch the next page; null on the last page
+    private String nextCursor;
+    // Only filled when requested; estimated from table statistics when no filter is applied
+    private Long totalElements;
+}
@@ -44,6 +44,8 @@ public class OrderDetailResponse implements Serializable {
     private OffsetDateTime shippedDate;
     private OffsetDateTime deliveredDate;
     private String notes;
+    // Per-warehouse processing state; only filled for single-order detail
+    private List<OrderFulfillmentResponse> fulfillments;
 
     private Long confirmedBy;
     private Long updatedBy;
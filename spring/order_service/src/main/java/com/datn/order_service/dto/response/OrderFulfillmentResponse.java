@@ -0,0 +1,20 @@
+package com.datn.order_service.dto.response;
+
+import com.datn.order_service.enums.FulfillmentState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFulfillmentResponse implements Serializable {
+    private Long warehouseId;
+    private FulfillmentState state;
+    private OffsetDateTime processedAt;
+}
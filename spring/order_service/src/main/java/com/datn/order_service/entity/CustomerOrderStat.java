@@ -0,0 +1,39 @@
+package com.datn.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Running order totals of one customer, so profile stats and the pending order check
+ * are primary key reads. Maintained by {@link com.datn.order_service.service.OrderAnalyticsService}.
+ */
+@Entity
+@Table(name = "customer_order_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerOrderStat {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    // Sum of total_amount over PAID orders
+    @Column(name = "paid_total", nullable = false, precision = 18, scale = 2)
+    private BigDecimal paidTotal;
+
+    // Orders not yet DELIVERED, cancelled ones included
+    @Column(name = "pending_count", nullable = false)
+    private long pendingCount;
+
+    @Column(name = "last_order_date")
+    private OffsetDateTime lastOrderDate;
+}
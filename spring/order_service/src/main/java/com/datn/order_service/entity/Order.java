@@ -17,7 +17,11 @@ import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset paging of the admin order search: ORDER BY order_date DESC, id DESC
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date DESC, id DESC"),
+        @Index(name = "idx_orders_delivered_date", columnList = "delivered_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -25,8 +29,8 @@ import java.util.Map;
 @Builder
 public class Order {
 
+    // Assigned from orders_seq by OrderIdAllocator so the order number is known before insert
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(name = "order_number", nullable = false, unique = true, length = 50)
@@ -0,0 +1,38 @@
+package com.datn.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Delivered orders, amount and revenue per delivery day.
+ * Maintained by {@link com.datn.order_service.service.OrderAnalyticsService}.
+ */
+@Entity
+@Table(name = "order_delivered_daily_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"stat_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderDeliveredDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,49 @@
+package com.datn.order_service.entity;
+
+import com.datn.order_service.enums.FulfillmentState;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One row per warehouse an order ships from; the order moves on to delivery
+ * once every row of it is PROCESSED.
+ */
+@Entity
+@Table(name = "order_fulfillments",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"order_id", "warehouse_id"}),
+        indexes = @Index(name = "idx_order_fulfillments_warehouse_state", columnList = "warehouse_id, state, order_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderFulfillment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private FulfillmentState state = FulfillmentState.PENDING;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private OffsetDateTime processedAt;
+
+    @Column(name = "processed_by")
+    private Long processedBy;
+}
@@ -22,7 +22,8 @@ import java.util.Map;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -46,7 +47,7 @@ public class OrderItem {
 
     @Type(JsonBinaryType.class)
     @Column(name = "product_snapshot", columnDefinition = "jsonb")
-    private Map<String, Object> productSnapshot;
+    private ProductSnapshot productSnapshot;
 
     @Column(name = "item_warehouse_data")
     @JdbcTypeCode(SqlTypes.JSON)
@@ -0,0 +1,34 @@
+package com.datn.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Number of orders placed on a day that are currently in a given status.
+ * Maintained by {@link com.datn.order_service.service.OrderAnalyticsService}.
+ */
+@Entity
+@Table(name = "order_status_daily_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"stat_date", "status_name"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "status_name", nullable = false, length = 50)
+    private String statusName;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+}
@@ -0,0 +1,57 @@
+package com.datn.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Order lines and units sold per variant and order day, with the product
+ * labels copied from the item snapshot so top-product queries need no jsonb.
+ * Maintained by {@link com.datn.order_service.service.OrderAnalyticsService}.
+ */
+@Entity
+@Table(name = "order_variant_daily_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"stat_date", "variant_id"}),
+        indexes = @Index(name = "idx_variant_daily_product", columnList = "stat_date, product_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderVariantDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "product_code")
+    private String productCode;
+
+    @Column(name = "product_slug")
+    private String productSlug;
+
+    @Column(name = "variant_name")
+    private String variantName;
+
+    @Column(name = "variant_sku")
+    private String variantSku;
+
+    @Column(name = "line_count", nullable = false)
+    private long lineCount;
+
+    @Column(nullable = false)
+    private long units;
+}
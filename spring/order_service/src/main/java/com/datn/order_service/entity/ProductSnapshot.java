@@ -0,0 +1,103 @@
+package com.datn.order_service.entity;
+
+import com.datn.order_service.client.dto.VariantDTO;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Variant data copied onto an order item when it is placed, stored in the product_snapshot jsonb column.
+ * Keys match the map the snapshot used to be written from, so existing rows and the SQL that reads
+ * them with ->> keep working. Rows written before this type have no version and count as version 1.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductSnapshot {
+
+    public static final int CURRENT_VERSION = 2;
+    public static final String UNKNOWN_VARIANT = "Unknown Variant";
+
+    private Integer version;
+    private Long variantId;
+    private Long productId;
+    private String name;
+    private String productName;
+    private String code;
+    private String slug;
+    private String sku;
+    private BigDecimal sellingPrice;
+    private BigDecimal importPrice;
+    private Integer discountPercent;
+    private Map<String, String> attributes;
+
+    // Version 1 rows stored [] when the variant had no images
+    @JsonDeserialize(using = ImageUrlsDeserializer.class)
+    private Map<String, String> imageUrls;
+
+    @JsonProperty("isActive")
+    private Boolean active;
+    private String status;
+    private LocalDateTime snapshotDate;
+
+    public static ProductSnapshot from(VariantDTO variant) {
+        if (variant == null) {
+            return ProductSnapshot.builder()
+                    .version(CURRENT_VERSION)
+                    .name(UNKNOWN_VARIANT)
+                    .snapshotDate(LocalDateTime.now())
+                    .build();
+        }
+        return ProductSnapshot.builder()
+                .version(CURRENT_VERSION)
+                .variantId(variant.getId())
+                .productId(variant.getProductId())
+                .name(variant.getName())
+                .productName(variant.getProductName())
+                .code(variant.getProductCode())
+                .slug(variant.getProductSlug())
+                .sku(variant.getSku())
+                .sellingPrice(variant.getSellingPrice())
+                .importPrice(variant.getImportPrice())
+                .discountPercent(variant.getDiscountPercent())
+                .attributes(variant.getAttributes())
+                .imageUrls(variant.getImageUrls())
+                .active(variant.isActive())
+                .status(variant.getStatus())
+                .snapshotDate(LocalDateTime.now())
+                .build();
+    }
+
+    public String mainImage() {
+        return imageUrls != null ? imageUrls.get("main") : null;
+    }
+
+    static class ImageUrlsDeserializer extends JsonDeserializer<Map<String, String>> {
+
+        private static final TypeReference<Map<String, String>> TYPE = new TypeReference<>() {
+        };
+
+        @Override
+        public Map<String, String> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonNode node = parser.readValueAsTree();
+            if (node == null || !node.isObject()) {
+                return null;
+            }
+            return parser.getCodec().readValue(parser.getCodec().treeAsTokens(node), TYPE);
+        }
+    }
+}
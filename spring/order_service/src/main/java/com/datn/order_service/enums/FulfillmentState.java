@@ -0,0 +1,6 @@
+package com.datn.order_service.enums;
+
+public enum FulfillmentState {
+    PENDING,    // Kho chưa xử lý
+    PROCESSED   // Kho đã xử lý xong
+}
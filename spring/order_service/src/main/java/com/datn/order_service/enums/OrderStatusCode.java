@@ -0,0 +1,53 @@
+package com.datn.order_service.enums;
+
+import java.util.*;
+
+/**
+ * Known rows of the order_statuses table, with the transitions staff may perform.
+ */
+public enum OrderStatusCode {
+    PENDING,
+    CONFIRMED,
+    PROCESSING,
+    WAITING,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED,
+    RETURNED;
+
+    private static final Map<OrderStatusCode, Set<OrderStatusCode>> ALLOWED_TRANSITIONS = new EnumMap<>(OrderStatusCode.class);
+
+    static {
+        ALLOWED_TRANSITIONS.put(PENDING, EnumSet.of(CONFIRMED, CANCELLED));
+        ALLOWED_TRANSITIONS.put(CONFIRMED, EnumSet.of(PROCESSING, CANCELLED));
+        ALLOWED_TRANSITIONS.put(PROCESSING, EnumSet.of(SHIPPED, CANCELLED));
+        ALLOWED_TRANSITIONS.put(WAITING, EnumSet.of(PROCESSING, CANCELLED));
+        ALLOWED_TRANSITIONS.put(SHIPPED, EnumSet.of(DELIVERED));
+        ALLOWED_TRANSITIONS.put(DELIVERED, EnumSet.noneOf(OrderStatusCode.class));
+        ALLOWED_TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatusCode.class));
+        ALLOWED_TRANSITIONS.put(RETURNED, EnumSet.noneOf(OrderStatusCode.class));
+    }
+
+    public boolean canTransitionTo(OrderStatusCode next) {
+        return ALLOWED_TRANSITIONS.get(this).contains(next);
+    }
+
+    public static Optional<OrderStatusCode> fromName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(name));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Transition check by status name; names without a code are never allowed.
+     */
+    public static boolean isAllowed(String from, String to) {
+        Optional<OrderStatusCode> next = fromName(to);
+        return next.isPresent() && fromName(from).map(current -> current.canTransitionTo(next.get())).orElse(false);
+    }
+}
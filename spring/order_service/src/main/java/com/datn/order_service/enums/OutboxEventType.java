@@ -0,0 +1,7 @@
+package com.datn.order_service.enums;
+
+public enum OutboxEventType {
+    CART_CHECKOUT,      // Xóa sản phẩm khỏi giỏ hàng sau khi đặt
+    PROMOTION_USAGE,    // Ghi nhận sử dụng mã khuyến mãi
+    WEBHOOK             // Không còn dùng, chỉ còn các sự kiện cũ trong bảng outbox
+}
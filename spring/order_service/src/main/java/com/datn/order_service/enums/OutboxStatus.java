@@ -0,0 +1,7 @@
+package com.datn.order_service.enums;
+
+public enum OutboxStatus {
+    PENDING,    // Chờ gửi
+    SENT,       // Đã gửi thành công
+    FAILED      // Gửi thất bại sau khi hết số lần thử
+}
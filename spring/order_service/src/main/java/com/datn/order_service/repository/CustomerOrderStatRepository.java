@@ -0,0 +1,48 @@
+package com.datn.order_service.repository;
+
+import com.datn.order_service.entity.CustomerOrderStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+@Repository
+public interface CustomerOrderStatRepository extends JpaRepository<CustomerOrderStat, Long> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO customer_order_stats (customer_id, order_count, paid_total, pending_count, last_order_date)
+            VALUES (:customerId, :orderDelta, :paidDelta, :pendingDelta, :orderDate)
+            ON CONFLICT (customer_id)
+            DO UPDATE SET order_count = customer_order_stats.order_count + EXCLUDED.order_count,
+                          paid_total = customer_order_stats.paid_total + EXCLUDED.paid_total,
+                          pending_count = customer_order_stats.pending_count + EXCLUDED.pending_count,
+                          last_order_date = GREATEST(customer_order_stats.last_order_date, EXCLUDED.last_order_date)
+            """, nativeQuery = true)
+    int increment(@Param("customerId") Long customerId,
+                  @Param("orderDelta") long orderDelta,
+                  @Param("paidDelta") BigDecimal paidDelta,
+                  @Param("pendingDelta") long pendingDelta,
+                  @Param("orderDate") OffsetDateTime orderDate);
+
+    @Modifying
+    @Query(value = "DELETE FROM customer_order_stats", nativeQuery = true)
+    int deleteAllStats();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO customer_order_stats (customer_id, order_count, paid_total, pending_count, last_order_date)
+            SELECT o.customer_id, COUNT(*),
+                   COALESCE(SUM(o.total_amount) FILTER (WHERE o.payment_status = 'PAID'), 0),
+                   COUNT(*) FILTER (WHERE s.name <> 'DELIVERED'),
+                   MAX(o.order_date)
+            FROM orders o
+            JOIN order_statuses s ON s.id = o.status_id
+            GROUP BY o.customer_id
+            """, nativeQuery = true)
+    int rebuild();
+}
@@ -0,0 +1,69 @@
+package com.datn.order_service.repository;
+
+import com.datn.order_service.entity.OrderDeliveredDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderDeliveredDailyStatRepository extends JpaRepository<OrderDeliveredDailyStat, Long> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_delivered_daily_stats (stat_date, order_count, total_amount, revenue)
+            VALUES (:statDate, :delta, :totalAmount, :revenue)
+            ON CONFLICT (stat_date)
+            DO UPDATE SET order_count = order_delivered_daily_stats.order_count + EXCLUDED.order_count,
+                          total_amount = order_delivered_daily_stats.total_amount + EXCLUDED.total_amount,
+                          revenue = order_delivered_daily_stats.revenue + EXCLUDED.revenue
+            """, nativeQuery = true)
+    int increment(@Param("statDate") LocalDate statDate,
+                  @Param("delta") long delta,
+                  @Param("totalAmount") BigDecimal totalAmount,
+                  @Param("revenue") BigDecimal revenue);
+
+    @Query(value = """
+            SELECT COALESCE(SUM(order_count), 0) AS total_orders,
+                   COALESCE(SUM(revenue), 0) AS total_revenue
+            FROM order_delivered_daily_stats
+            WHERE stat_date BETWEEN :from AND :to
+            """, nativeQuery = true)
+    List<Object[]> getOrderSummary(@Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Query(value = """
+            SELECT stat_date, order_count, total_amount, revenue
+            FROM order_delivered_daily_stats
+            WHERE stat_date BETWEEN :from AND :to
+              AND order_count > 0
+            ORDER BY stat_date
+            """, nativeQuery = true)
+    List<Object[]> getDailyStats(@Param("from") LocalDate from,
+                                 @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_delivered_daily_stats WHERE stat_date BETWEEN :from AND :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_delivered_daily_stats (stat_date, order_count, total_amount, revenue)
+            SELECT CAST(o.delivered_date AT TIME ZONE :zone AS date), COUNT(*),
+                   COALESCE(SUM(o.total_amount), 0), COALESCE(SUM(o.revenue), 0)
+            FROM orders o
+            JOIN order_statuses s ON s.id = o.status_id
+            WHERE s.name = 'DELIVERED'
+              AND o.delivered_date >= :from AND o.delivered_date < :to
+            GROUP BY 1
+            """, nativeQuery = true)
+    int rebuild(@Param("from") OffsetDateTime from,
+                @Param("to") OffsetDateTime to,
+                @Param("zone") String zone);
+}
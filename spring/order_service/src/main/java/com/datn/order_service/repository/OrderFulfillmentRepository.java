@@ -0,0 +1,71 @@
+package com.datn.order_service.repository;
+
+import com.datn.order_service.entity.OrderFulfillment;
+import com.datn.order_service.enums.FulfillmentState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderFulfillmentRepository extends JpaRepository<OrderFulfillment, Long> {
+
+    List<OrderFulfillment> findByOrderId(Long orderId);
+
+    boolean existsByOrderIdAndState(Long orderId, FulfillmentState state);
+
+    @Modifying
+    @Query("""
+            UPDATE OrderFulfillment f
+            SET f.state = com.datn.order_service.enums.FulfillmentState.PROCESSED,
+                f.processedAt = :processedAt, f.processedBy = :processedBy
+            WHERE f.orderId = :orderId AND f.warehouseId = :warehouseId
+              AND f.state = com.datn.order_service.enums.FulfillmentState.PENDING
+            """)
+    int markProcessed(@Param("orderId") Long orderId,
+                      @Param("warehouseId") Long warehouseId,
+                      @Param("processedBy") Long processedBy,
+                      @Param("processedAt") OffsetDateTime processedAt);
+
+    @Modifying
+    @Query("""
+            UPDATE OrderFulfillment f
+            SET f.state = com.datn.order_service.enums.FulfillmentState.PROCESSED,
+                f.processedAt = :processedAt, f.processedBy = :processedBy
+            WHERE f.orderId = :orderId
+              AND f.state = com.datn.order_service.enums.FulfillmentState.PENDING
+            """)
+    int markAllProcessed(@Param("orderId") Long orderId,
+                         @Param("processedBy") Long processedBy,
+                         @Param("processedAt") OffsetDateTime processedAt);
+
+    /**
+     * Seeds rows for orders placed before this table existed. A warehouse counts as
+     * processed when the order is already past PROCESSING or when it is listed in the
+     * legacy "Kho: 1,2" suffix that used to be appended to the order notes.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_fulfillments (order_id, warehouse_id, state, created_at, processed_at)
+            SELECT o.id, CAST(w.value AS bigint),
+                   CASE WHEN p.done THEN 'PROCESSED' ELSE 'PENDING' END,
+                   o.order_date,
+                   CASE WHEN p.done THEN o.updated_at END
+            FROM orders o
+            JOIN order_statuses s ON s.id = o.status_id
+            CROSS JOIN LATERAL jsonb_array_elements_text(o.warehouse_data) w(value)
+            CROSS JOIN LATERAL (
+                SELECT s.name IN ('SHIPPED', 'DELIVERED', 'RETURNED')
+                       OR w.value = ANY (regexp_split_to_array(
+                              substring(lower(o.notes) from 'kho.\\s*([0-9,\\s]+)$'), '\\s*,\\s*')) AS done
+            ) p
+            WHERE jsonb_typeof(o.warehouse_data) = 'array'
+              AND NOT EXISTS (SELECT 1 FROM order_fulfillments f WHERE f.order_id = o.id)
+            ON CONFLICT (order_id, warehouse_id) DO NOTHING
+            """, nativeQuery = true)
+    int backfillFromOrders();
+}
@@ -1,14 +1,13 @@
 package com.datn.order_service.repository;
 
 import com.datn.order_service.entity.OrderItem;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,35 +15,55 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
     List<OrderItem> findByOrderId(Long orderId);
 
+    /**
+     * Order list rows: the scalar columns plus the few snapshot keys a listing shows,
+     * extracted in SQL so the snapshot document itself is never sent or parsed.
+     */
+    interface ListingRow {
+        Long getId();
 
-    @Query(value = """
-        SELECT
-            (product_snapshot->>'productId')::bigint AS product_id,
-            COUNT(*) AS total_sold,
-            product_snapshot->>'productName' AS product_name,
-            product_snapshot->>'code' AS product_code,
-            product_snapshot->>'slug' AS product_slug
-        FROM order_items
-        WHERE created_at BETWEEN :from AND :to
-        GROUP BY product_snapshot->>'productId', product_snapshot->>'productName', product_snapshot->>'code', product_snapshot->>'slug'
-        ORDER BY total_sold DESC
-        """, nativeQuery = true)
-    List<Object[]> getTopProduct(@Param("from") OffsetDateTime from,
-                                 @Param("to") OffsetDateTime to,
-                                 Pageable pageable);
+        Long getOrderId();
+
+        Long getVariantId();
+
+        Integer getQuantity();
+
+        BigDecimal getUnitPrice();
+
+        BigDecimal getTotalPrice();
+
+        Boolean getReturnRequested();
+
+        String getVariantName();
+
+        String getVariantSku();
+
+        Long getProductId();
+
+        String getProductSlug();
+
+        String getImageUrl();
+
+        String getItemWarehouseData();
+    }
 
     @Query(value = """
-        SELECT
-            variant_id,
-            COUNT(*) AS total_sold,
-            product_snapshot->>'name' AS variant_name,
-            product_snapshot->>'sku' AS variant_sku
-        FROM order_items
-        WHERE created_at BETWEEN :from AND :to
-        GROUP BY variant_id, product_snapshot->>'name', product_snapshot->>'sku'
-        ORDER BY total_sold DESC
-        """, nativeQuery = true)
-    List<Object[]> getTopVariant(@Param("from") OffsetDateTime from,
-                                 @Param("to") OffsetDateTime to,
-                                 Pageable pageable);
-}
\ No newline at end of file
+            SELECT oi.id AS "id",
+                   oi.order_id AS "orderId",
+                   oi.variant_id AS "variantId",
+                   oi.quantity AS "quantity",
+                   oi.unit_price AS "unitPrice",
+                   oi.total_price AS "totalPrice",
+                   oi.return_requested AS "returnRequested",
+                   oi.product_snapshot ->> 'name' AS "variantName",
+                   oi.product_snapshot ->> 'sku' AS "variantSku",
+                   CAST(oi.product_snapshot ->> 'productId' AS bigint) AS "productId",
+                   oi.product_snapshot ->> 'slug' AS "productSlug",
+                   oi.product_snapshot -> 'imageUrls' ->> 'main' AS "imageUrl",
+                   CAST(oi.item_warehouse_data AS text) AS "itemWarehouseData"
+            FROM order_items oi
+            WHERE oi.order_id IN (:orderIds)
+            ORDER BY oi.id
+            """, nativeQuery = true)
+    List<ListingRow> findListingRows(@Param("orderIds") Collection<Long> orderIds);
+}
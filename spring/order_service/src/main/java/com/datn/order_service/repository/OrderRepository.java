@@ -4,12 +4,13 @@ import com.datn.order_service.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,15 +19,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Optional<Order> findByOrderNumber(String orderNumber);
 
-
-    Page<Order> findByStatusId(Long statusId, Pageable pageable);
+    @Query("SELECT o FROM Order o JOIN FETCH o.status WHERE o.orderNumber IN :orderNumbers")
+    List<Order> findByOrderNumberIn(@Param("orderNumbers") Collection<String> orderNumbers);
 
 
-    @Query("SELECT COUNT(o) FROM Order o WHERE o.customerId = :customerId")
-    Long countByCustomerId(Long customerId);
+    Page<Order> findByStatusId(Long statusId, Pageable pageable);
 
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.customerId = :customerId AND o.paymentStatus = 'PAID'")
-    BigDecimal sumTotalAmountByCustomerId(Long customerId);
 
     @Query("""
                 SELECT o FROM Order o
@@ -37,52 +35,22 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             """)
     Page<Order> findByCustomerIdAndStatus(@Param("customerId") Long customerId, @Param("statusName") String statusName, Pageable pageable);
 
-    @Query(value = """
-            SELECT COUNT(id) AS total_orders,
-                   COALESCE(SUM(revenue), 0) AS total_revenue
-            FROM orders
-            WHERE delivered_date >= :from AND delivered_date < :to
-              AND (:statusId IS NULL OR status_id = :statusId)
-            """, nativeQuery = true)
-    List<Object[]> getOrderSummary(@Param("from") OffsetDateTime from,
-                                   @Param("to") OffsetDateTime to,
-                                   @Param("statusId") Long statusId);
-
     @Query("""
-            SELECT o.status.name, COUNT(o)
-            FROM Order o
-            WHERE o.orderDate >= :from AND o.orderDate < :to
-            GROUP BY o.status.name
+            SELECT o.id, o.customerId FROM Order o
+            WHERE o.userConfirmedAt IS NULL AND o.deliveredDate < :cutoff AND o.id > :afterId
+            ORDER BY o.id
             """)
-    List<Object[]> getOrderStatusStats(@Param("from") OffsetDateTime from,
-                                       @Param("to") OffsetDateTime to);
-
-    @Query(value = """
-            SELECT DATE(delivered_date) AS delivered_date,
-                   COUNT(*) AS total_orders,
-                   COALESCE(SUM(total_amount),0) AS total_amount,
-                   COALESCE(SUM(revenue),0) AS total_revenue
-            FROM orders
-            WHERE delivered_date >= :from AND delivered_date < :to
-              AND (:statusId IS NULL OR status_id = :statusId)
-            GROUP BY DATE(delivered_date)
-            ORDER BY DATE(delivered_date)
-            """, nativeQuery = true)
-    List<Object[]> getDailyStats(@Param("from") OffsetDateTime from,
-                                 @Param("to") OffsetDateTime to,
-                                 @Param("statusId") Long statusId);
-
-    List<Order> findByUserConfirmedAtIsNullAndDeliveredDateBefore(OffsetDateTime cutoff);
+    List<Object[]> findAutoConfirmCandidates(@Param("cutoff") OffsetDateTime cutoff,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
 
+    @Modifying
     @Query("""
-                SELECT COUNT(o) > 0
-                FROM Order o
-                JOIN o.status s
-                WHERE o.customerId = :customerId
-                  AND s.name <> :statusName
+            UPDATE Order o SET o.userConfirmedAt = :confirmedAt, o.updatedAt = :confirmedAt
+            WHERE o.id IN :ids AND o.userConfirmedAt IS NULL
             """)
-    boolean existsByCustomerIdAndStatusNot(
-            @Param("customerId") Long customerId,
-            @Param("statusName") String statusName
-    );
+    int confirmByIdIn(@Param("ids") Collection<Long> ids, @Param("confirmedAt") OffsetDateTime confirmedAt);
+
+    @Query("SELECT MIN(o.orderDate) FROM Order o")
+    OffsetDateTime findFirstOrderDate();
 }
\ No newline at end of file
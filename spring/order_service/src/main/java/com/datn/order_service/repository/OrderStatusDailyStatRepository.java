@@ -0,0 +1,54 @@
+package com.datn.order_service.repository;
+
+import com.datn.order_service.entity.OrderStatusDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderStatusDailyStatRepository extends JpaRepository<OrderStatusDailyStat, Long> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_status_daily_stats (stat_date, status_name, order_count)
+            VALUES (:statDate, :statusName, :delta)
+            ON CONFLICT (stat_date, status_name)
+            DO UPDATE SET order_count = order_status_daily_stats.order_count + EXCLUDED.order_count
+            """, nativeQuery = true)
+    int increment(@Param("statDate") LocalDate statDate,
+                  @Param("statusName") String statusName,
+                  @Param("delta") long delta);
+
+    @Query(value = """
+            SELECT status_name, SUM(order_count)
+            FROM order_status_daily_stats
+            WHERE stat_date BETWEEN :from AND :to
+            GROUP BY status_name
+            HAVING SUM(order_count) > 0
+            """, nativeQuery = true)
+    List<Object[]> getOrderStatusStats(@Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_status_daily_stats WHERE stat_date BETWEEN :from AND :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_status_daily_stats (stat_date, status_name, order_count)
+            SELECT CAST(o.order_date AT TIME ZONE :zone AS date), s.name, COUNT(*)
+            FROM orders o
+            JOIN order_statuses s ON s.id = o.status_id
+            WHERE o.order_date >= :from AND o.order_date < :to
+            GROUP BY 1, 2
+            """, nativeQuery = true)
+    int rebuild(@Param("from") OffsetDateTime from,
+                @Param("to") OffsetDateTime to,
+                @Param("zone") String zone);
+}
@@ -0,0 +1,91 @@
+package com.datn.order_service.repository;
+
+import com.datn.order_service.entity.OrderVariantDailyStat;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderVariantDailyStatRepository extends JpaRepository<OrderVariantDailyStat, Long> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_variant_daily_stats (stat_date, variant_id, product_id, product_name, product_code,
+                                                   product_slug, variant_name, variant_sku, line_count, units)
+            VALUES (:statDate, :variantId, :productId, :productName, :productCode,
+                    :productSlug, :variantName, :variantSku, 1, :units)
+            ON CONFLICT (stat_date, variant_id)
+            DO UPDATE SET line_count = order_variant_daily_stats.line_count + 1,
+                          units = order_variant_daily_stats.units + EXCLUDED.units
+            """, nativeQuery = true)
+    int addLine(@Param("statDate") LocalDate statDate,
+                @Param("variantId") Long variantId,
+                @Param("productId") Long productId,
+                @Param("productName") String productName,
+                @Param("productCode") String productCode,
+                @Param("productSlug") String productSlug,
+                @Param("variantName") String variantName,
+                @Param("variantSku") String variantSku,
+                @Param("units") long units);
+
+    @Query(value = """
+            SELECT product_id,
+                   SUM(line_count) AS total_sold,
+                   MAX(product_name) AS product_name,
+                   MAX(product_code) AS product_code,
+                   MAX(product_slug) AS product_slug
+            FROM order_variant_daily_stats
+            WHERE stat_date BETWEEN :from AND :to
+              AND product_id IS NOT NULL
+            GROUP BY product_id
+            ORDER BY total_sold DESC
+            """, nativeQuery = true)
+    List<Object[]> getTopProduct(@Param("from") LocalDate from,
+                                 @Param("to") LocalDate to,
+                                 Pageable pageable);
+
+    @Query(value = """
+            SELECT variant_id,
+                   SUM(line_count) AS total_sold,
+                   MAX(variant_name) AS variant_name,
+                   MAX(variant_sku) AS variant_sku
+            FROM order_variant_daily_stats
+            WHERE stat_date BETWEEN :from AND :to
+            GROUP BY variant_id
+            ORDER BY total_sold DESC
+            """, nativeQuery = true)
+    List<Object[]> getTopVariant(@Param("from") LocalDate from,
+                                 @Param("to") LocalDate to,
+                                 Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_variant_daily_stats WHERE stat_date BETWEEN :from AND :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // order_items.created_at is stored as local time, so its date is already the order day
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_variant_daily_stats (stat_date, variant_id, product_id, product_name, product_code,
+                                                   product_slug, variant_name, variant_sku, line_count, units)
+            SELECT CAST(i.created_at AS date), i.variant_id,
+                   MAX(CAST(i.product_snapshot->>'productId' AS bigint)),
+                   MAX(i.product_snapshot->>'productName'),
+                   MAX(i.product_snapshot->>'code'),
+                   MAX(i.product_snapshot->>'slug'),
+                   MAX(i.product_snapshot->>'name'),
+                   MAX(i.product_snapshot->>'sku'),
+                   COUNT(*), COALESCE(SUM(i.quantity), 0)
+            FROM order_items i
+            WHERE i.created_at >= :from AND i.created_at < :to
+            GROUP BY 1, 2
+            """, nativeQuery = true)
+    int rebuild(@Param("from") LocalDateTime from,
+                @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,25 @@
+package com.datn.order_service.repository;
+
+import com.datn.order_service.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED lets several order_service instances drain the outbox without blocking each other
+    @Query(value = """
+            SELECT * FROM outbox_events
+            WHERE status = 'PENDING'
+              AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockDueEvents(@Param("now") OffsetDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,77 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.client.PromotionServiceClient;
+import com.datn.order_service.client.dto.request.ValidatePromotionRequest;
+import com.datn.order_service.client.dto.response.PromotionValidationResponse;
+import com.datn.order_service.dto.request.OrderItemRequest;
+import com.datn.order_service.dto.response.ApiResponse;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Validates a promotion code against promotion-service for a checkout subtotal.
+ * Shared by order creation and checkout quotes so both apply the same rules.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutPromotionResolver {
+
+    private final PromotionServiceClient promotionServiceClient;
+
+    public record AppliedPromotion(Long promotionId, BigDecimal discountAmount) {
+        public static final AppliedPromotion NONE = new AppliedPromotion(null, BigDecimal.ZERO);
+    }
+
+    public AppliedPromotion resolve(Long customerId, String promotionCode, BigDecimal subtotal,
+                                    List<OrderItemRequest> items) {
+        if (promotionCode == null || promotionCode.isEmpty()) {
+            return AppliedPromotion.NONE;
+        }
+        ValidatePromotionRequest promoRequest = ValidatePromotionRequest.builder()
+                .code(promotionCode)
+                .customerId(customerId)
+                .orderAmount(subtotal)
+                .productIds(items.stream()
+                        .map(OrderItemRequest::getProductId)
+                        .toList())
+                .build();
+
+        try {
+            ApiResponse<PromotionValidationResponse> apiResponse =
+                    promotionServiceClient.validatePromotion(promoRequest);
+
+            log.info("Promotion API response - success: {}, message: {}",
+                    apiResponse.isSuccess(), apiResponse.getMessage());
+
+            if (apiResponse.isSuccess() && apiResponse.getData() != null) {
+                PromotionValidationResponse promoResponse = apiResponse.getData();
+
+                if (Boolean.TRUE.equals(promoResponse.getIsValid())) {
+                    log.info("Áp dụng khuyến mãi thành công - Mã: {}, Giảm: {}",
+                            promotionCode, promoResponse.getDiscountAmount());
+                    return new AppliedPromotion(promoResponse.getPromotion().getId(),
+                            promoResponse.getDiscountAmount());
+                }
+                log.warn("Xác thực khuyến mãi thất bại: {}", promoResponse.getMessage());
+                throw new RuntimeException("Mã khuyến mãi không hợp lệ hoặc đã hết hạn");
+            }
+            log.warn("Gọi API khuyến mãi không thành công: {}", apiResponse.getMessage());
+            throw new RuntimeException("Không thể xác thực mã khuyến mãi, vui lòng thử lại");
+
+        } catch (FeignException e) {
+            log.error("Lỗi Feign ...", e);
+            throw new RuntimeException("Không thể kết nối tới dịch vụ khuyến mãi", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Lỗi không xác định khi gọi service khuyến mãi", e);
+            throw new RuntimeException("Có lỗi xảy ra khi xử lý khuyến mãi", e);
+        }
+    }
+}
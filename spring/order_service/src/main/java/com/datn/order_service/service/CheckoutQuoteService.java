@@ -0,0 +1,193 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.client.ProductServiceClient;
+import com.datn.order_service.client.dto.VariantDTO;
+import com.datn.order_service.client.dto.VariantPriceDTO;
+import com.datn.order_service.dto.CheckoutQuote;
+import com.datn.order_service.dto.request.CheckoutQuoteRequest;
+import com.datn.order_service.dto.request.CreateOrderRequest;
+import com.datn.order_service.dto.request.OrderItemRequest;
+import com.datn.order_service.dto.response.CheckoutQuoteResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Short-lived checkout quotes. A quote captures the variants, prices and promotion the
+ * customer was shown, so submitting the order only re-checks current prices with one
+ * light call instead of reloading every variant. A quoted promotion is validated again,
+ * since its usage limits may have been reached since the quote was made.
+ * Quotes live in Redis under a random id bound to the customer and are single use.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutQuoteService {
+
+    private static final String KEY_PREFIX = "checkoutQuote:";
+
+    private final CheckoutVariantResolver checkoutVariantResolver;
+    private final CheckoutPromotionResolver checkoutPromotionResolver;
+    private final ProductServiceClient productServiceClient;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.checkout.quote-ttl-seconds:300}")
+    private long quoteTtlSeconds;
+
+    public CheckoutQuoteResponse createQuote(Long customerId, CheckoutQuoteRequest request) {
+        Map<Long, VariantDTO> variants = checkoutVariantResolver.resolve(request.getItems());
+
+        List<CheckoutQuoteResponse.Line> lines = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (OrderItemRequest item : request.getItems()) {
+            VariantDTO variant = variants.get(item.getVariantId());
+            if (!variant.isActive() || "OUT_OF_STOCK".equals(variant.getStatus())) {
+                throw new RuntimeException("Sản phẩm " + variant.getName() + " hiện không thể mua");
+            }
+            if (variant.getSellingPrice() == null) {
+                throw new RuntimeException("Selling price is not available for variant ID: " + item.getVariantId());
+            }
+            BigDecimal totalPrice = variant.getSellingPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            subtotal = subtotal.add(totalPrice);
+            lines.add(CheckoutQuoteResponse.Line.builder()
+                    .variantId(variant.getId())
+                    .name(variant.getName())
+                    .sku(variant.getSku())
+                    .quantity(item.getQuantity())
+                    .unitPrice(variant.getSellingPrice())
+                    .totalPrice(totalPrice)
+                    .build());
+        }
+
+        CheckoutPromotionResolver.AppliedPromotion promotion = checkoutPromotionResolver.resolve(
+                customerId, request.getPromotionCode(), subtotal, request.getItems());
+
+        OffsetDateTime expiresAt = OffsetDateTime.now().plusSeconds(quoteTtlSeconds);
+        CheckoutQuote quote = CheckoutQuote.builder()
+                .quoteId(UUID.randomUUID().toString())
+                .customerId(customerId)
+                .items(request.getItems())
+                .variants(variants)
+                .subtotal(subtotal)
+                .promotionCode(request.getPromotionCode())
+                .promotionId(promotion.promotionId())
+                .discountAmount(promotion.discountAmount())
+                .expiresAt(expiresAt)
+                .build();
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + quote.getQuoteId(),
+                    objectMapper.writeValueAsString(quote), Duration.ofSeconds(quoteTtlSeconds));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Không thể tạo báo giá, vui lòng thử lại", e);
+        }
+
+        return CheckoutQuoteResponse.builder()
+                .quoteId(quote.getQuoteId())
+                .lines(lines)
+                .subtotal(subtotal)
+                .discountAmount(promotion.discountAmount())
+                .totalAmount(subtotal.subtract(promotion.discountAmount()))
+                .promotionCode(request.getPromotionCode())
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    /**
+     * Takes the quote named by the order request, if it still exists and matches the
+     * request's customer, lines and promotion code. An empty result means the caller
+     * must validate the order in full. Throws when a quoted price is no longer current.
+     */
+    public Optional<CheckoutQuote> redeem(CreateOrderRequest request) {
+        if (request.getQuoteId() == null) {
+            return Optional.empty();
+        }
+        CheckoutQuote quote = take(request.getQuoteId());
+        if (quote == null) {
+            log.info("Checkout quote {} expired or already used, validating order in full", request.getQuoteId());
+            return Optional.empty();
+        }
+        if (!Objects.equals(quote.getCustomerId(), request.getCustomerId())
+                || !quantities(quote.getItems()).equals(quantities(request.getItems()))
+                || !Objects.equals(normalizeCode(quote.getPromotionCode()), normalizeCode(request.getPromotionCode()))) {
+            log.warn("Checkout quote {} does not match the order request, validating order in full", quote.getQuoteId());
+            return Optional.empty();
+        }
+
+        verifyPrices(quote);
+        if (quote.getPromotionId() != null) {
+            // Usage is only recorded after the order commits, so the code may have been used up
+            // by another order or quote since this one was created
+            CheckoutPromotionResolver.AppliedPromotion promotion = checkoutPromotionResolver.resolve(
+                    quote.getCustomerId(), quote.getPromotionCode(), quote.getSubtotal(), request.getItems());
+            quote.setPromotionId(promotion.promotionId());
+            quote.setDiscountAmount(promotion.discountAmount());
+        }
+        log.info("Redeemed checkout quote {} for customer {}", quote.getQuoteId(), quote.getCustomerId());
+        return Optional.of(quote);
+    }
+
+    private void verifyPrices(CheckoutQuote quote) {
+        List<VariantPriceDTO> prices;
+        try {
+            prices = productServiceClient.getVariantPrices(new ArrayList<>(quote.getVariants().keySet()));
+        } catch (FeignException e) {
+            log.error("Failed to get variant prices {}: Status={}", quote.getVariants().keySet(), e.status());
+            throw new RuntimeException("Không thể kết nối tới dịch vụ sản phẩm, vui lòng thử lại sau.");
+        }
+
+        Map<Long, VariantPriceDTO> priceById = new HashMap<>();
+        for (VariantPriceDTO price : prices) {
+            priceById.put(price.getId(), price);
+        }
+        for (VariantDTO variant : quote.getVariants().values()) {
+            VariantPriceDTO current = priceById.get(variant.getId());
+            if (current == null) {
+                throw new RuntimeException("Variant not found with ID: " + variant.getId());
+            }
+            if (current.getSellingPrice() == null
+                    || current.getSellingPrice().compareTo(variant.getSellingPrice()) != 0) {
+                log.info("Price of variant {} changed since quote {}: {} → {}",
+                        variant.getId(), quote.getQuoteId(), variant.getSellingPrice(), current.getSellingPrice());
+                throw new RuntimeException("Giá sản phẩm " + variant.getName()
+                        + " đã thay đổi, vui lòng kiểm tra lại đơn hàng");
+            }
+            // Import price and availability are not part of the quote, take the current values
+            variant.setImportPrice(current.getImportPrice());
+            variant.setActive(Boolean.TRUE.equals(current.getIsActive()));
+            variant.setStatus(current.getStatus());
+        }
+    }
+
+    private CheckoutQuote take(String quoteId) {
+        try {
+            String json = redisTemplate.opsForValue().getAndDelete(KEY_PREFIX + quoteId);
+            return json != null ? objectMapper.readValue(json, CheckoutQuote.class) : null;
+        } catch (Exception e) {
+            log.warn("Failed to read checkout quote {}: {}", quoteId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<Long, Integer> quantities(List<OrderItemRequest> items) {
+        Map<Long, Integer> result = new HashMap<>();
+        for (OrderItemRequest item : items) {
+            result.merge(item.getVariantId(), item.getQuantity(), Integer::sum);
+        }
+        return result;
+    }
+
+    private String normalizeCode(String code) {
+        return code == null || code.isBlank() ? null : code.trim();
+    }
+}
@@ -0,0 +1,56 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.client.ProductServiceClient;
+import com.datn.order_service.client.dto.VariantDTO;
+import com.datn.order_service.dto.request.OrderItemRequest;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Loads every variant of a checkout request with one bulk call to product-service,
+ * so subtotal, profit and snapshot creation all read from the same snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutVariantResolver {
+
+    private final ProductServiceClient productServiceClient;
+
+    public Map<Long, VariantDTO> resolve(List<OrderItemRequest> items) {
+        Set<Long> variantIds = new LinkedHashSet<>();
+        for (OrderItemRequest item : items) {
+            if (item.getVariantId() == null) {
+                log.error("Variant ID is required for item in order creation");
+                throw new RuntimeException("Variant ID is required for all items in the order.");
+            }
+            variantIds.add(item.getVariantId());
+        }
+
+        List<VariantDTO> variants;
+        try {
+            variants = productServiceClient.getVariantByIds(new ArrayList<>(variantIds));
+        } catch (FeignException e) {
+            log.error("Failed to get variants {}: Status={}", variantIds, e.status());
+            throw new RuntimeException("Không thể kết nối tới dịch vụ sản phẩm, vui lòng thử lại sau.");
+        }
+
+        Map<Long, VariantDTO> result = new HashMap<>();
+        if (variants != null) {
+            for (VariantDTO variant : variants) {
+                result.put(variant.getId(), variant);
+            }
+        }
+        for (Long variantId : variantIds) {
+            if (!result.containsKey(variantId)) {
+                throw new RuntimeException("Variant not found with ID: " + variantId);
+            }
+        }
+        log.info("Resolved {} variants for checkout", result.size());
+        return result;
+    }
+}
@@ -0,0 +1,150 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.entity.Order;
+import com.datn.order_service.entity.OrderItem;
+import com.datn.order_service.entity.ProductSnapshot;
+import com.datn.order_service.enums.PaymentStatus;
+import com.datn.order_service.repository.CustomerOrderStatRepository;
+import com.datn.order_service.repository.OrderDeliveredDailyStatRepository;
+import com.datn.order_service.repository.OrderStatusDailyStatRepository;
+import com.datn.order_service.repository.OrderVariantDailyStatRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the daily rollup tables read by {@link OrderDashboardService} and the per-customer
+ * totals in customer_order_stats up to date.
+ * Increments run inside the caller's transaction, so a rolled back order never counts.
+ * Days are bucketed in the JVM zone, the same zone the dashboard controller builds its ranges in.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderAnalyticsService {
+
+    private static final String DELIVERED = "DELIVERED";
+
+    private final OrderStatusDailyStatRepository statusDailyStatRepository;
+    private final OrderDeliveredDailyStatRepository deliveredDailyStatRepository;
+    private final OrderVariantDailyStatRepository variantDailyStatRepository;
+    private final CustomerOrderStatRepository customerOrderStatRepository;
+
+    public void recordOrderCreated(Order order, List<OrderItem> items) {
+        LocalDate orderDay = toDay(order.getOrderDate());
+        statusDailyStatRepository.increment(orderDay, order.getStatus().getName(), 1);
+        customerOrderStatRepository.increment(order.getCustomerId(), 1,
+                paidAmount(order, order.getPaymentStatus()),
+                DELIVERED.equals(order.getStatus().getName()) ? 0 : 1,
+                order.getOrderDate());
+
+        for (OrderItem item : items) {
+            ProductSnapshot snapshot = Objects.requireNonNullElseGet(item.getProductSnapshot(), ProductSnapshot::new);
+            variantDailyStatRepository.addLine(
+                    orderDay,
+                    item.getVariantId(),
+                    snapshot.getProductId(),
+                    snapshot.getProductName(),
+                    snapshot.getCode(),
+                    snapshot.getSlug(),
+                    snapshot.getName(),
+                    snapshot.getSku(),
+                    item.getQuantity()
+            );
+        }
+    }
+
+    /**
+     * Moves the order from its old status bucket to its current one, adds or removes it
+     * from the delivered totals when it enters or leaves DELIVERED, and applies the
+     * change to the customer's paid total and pending count.
+     */
+    public void recordOrderChange(Order order, String oldStatusName, PaymentStatus oldPaymentStatus) {
+        String newStatusName = order.getStatus().getName();
+        BigDecimal paidDelta = paidAmount(order, order.getPaymentStatus()).subtract(paidAmount(order, oldPaymentStatus));
+        long pendingDelta = (DELIVERED.equals(newStatusName) ? 0 : 1) - (DELIVERED.equals(oldStatusName) ? 0 : 1);
+        if (paidDelta.signum() != 0 || pendingDelta != 0) {
+            // Passing the order's own date leaves last_order_date unchanged
+            customerOrderStatRepository.increment(order.getCustomerId(), 0, paidDelta, pendingDelta, order.getOrderDate());
+        }
+
+        if (Objects.equals(oldStatusName, newStatusName)) {
+            return;
+        }
+
+        LocalDate orderDay = toDay(order.getOrderDate());
+        statusDailyStatRepository.increment(orderDay, oldStatusName, -1);
+        statusDailyStatRepository.increment(orderDay, newStatusName, 1);
+
+        if (order.getDeliveredDate() == null) {
+            return;
+        }
+        BigDecimal totalAmount = Objects.requireNonNullElse(order.getTotalAmount(), BigDecimal.ZERO);
+        BigDecimal revenue = Objects.requireNonNullElse(order.getRevenue(), BigDecimal.ZERO);
+        LocalDate deliveredDay = toDay(order.getDeliveredDate());
+        if (DELIVERED.equals(newStatusName)) {
+            deliveredDailyStatRepository.increment(deliveredDay, 1, totalAmount, revenue);
+        } else if (DELIVERED.equals(oldStatusName)) {
+            deliveredDailyStatRepository.increment(deliveredDay, -1, totalAmount.negate(), revenue.negate());
+        }
+    }
+
+    /**
+     * Recomputes the rollups for [from, to] from orders and order_items.
+     * Meant for history and repair; run it off-peak since live increments for the
+     * same days are not blocked while it runs.
+     */
+    @Transactional
+    public void rebuild(LocalDate from, LocalDate to) {
+        ZoneId zone = ZoneId.systemDefault();
+        OffsetDateTime fromTime = from.atStartOfDay(zone).toOffsetDateTime();
+        OffsetDateTime toTime = to.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
+
+        statusDailyStatRepository.deleteRange(from, to);
+        deliveredDailyStatRepository.deleteRange(from, to);
+        variantDailyStatRepository.deleteRange(from, to);
+
+        int statusRows = statusDailyStatRepository.rebuild(fromTime, toTime, zone.getId());
+        int deliveredRows = deliveredDailyStatRepository.rebuild(fromTime, toTime, zone.getId());
+        int variantRows = variantDailyStatRepository.rebuild(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+
+        log.info("Rebuilt order rollups {} → {}: {} status rows, {} delivered rows, {} variant rows",
+                from, to, statusRows, deliveredRows, variantRows);
+    }
+
+    /**
+     * Recomputes customer_order_stats from the orders table, for first use and repair.
+     */
+    @Transactional
+    public void rebuildCustomerStats() {
+        customerOrderStatRepository.deleteAllStats();
+        int rows = customerOrderStatRepository.rebuild();
+        log.info("Rebuilt customer order stats for {} customers", rows);
+    }
+
+    public boolean isCustomerStatsEmpty() {
+        return customerOrderStatRepository.count() == 0;
+    }
+
+    public boolean isEmpty() {
+        return statusDailyStatRepository.count() == 0 && variantDailyStatRepository.count() == 0;
+    }
+
+    private BigDecimal paidAmount(Order order, PaymentStatus paymentStatus) {
+        return paymentStatus == PaymentStatus.PAID
+                ? Objects.requireNonNullElse(order.getTotalAmount(), BigDecimal.ZERO)
+                : BigDecimal.ZERO;
+    }
+
+    public static LocalDate toDay(OffsetDateTime time) {
+        return time.atZoneSameInstant(ZoneId.systemDefault()).toLocalDate();
+    }
+}
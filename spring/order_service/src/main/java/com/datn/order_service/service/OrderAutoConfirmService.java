@@ -0,0 +1,112 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.repository.OrderRepository;
+import com.datn.order_service.utils.CustomerOrderCacheVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Confirms delivered orders the customer did not confirm within the grace period.
+ * Works in id-ordered chunks, each one SELECT of ids and one UPDATE committed on its own,
+ * so a large backlog never hydrates entities or holds a connection for the whole run.
+ * Metrics: orders.auto_confirm.rows (counter), orders.auto_confirm.chunk (timer),
+ * orders.auto_confirm.run.rows and orders.auto_confirm.run.rows_per_second (gauges of the
+ * current or last run).
+ */
+@Service
+@Slf4j
+public class OrderAutoConfirmService {
+
+    private final OrderRepository orderRepository;
+    private final CustomerOrderCacheVersion customerOrderCacheVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter confirmedRows;
+    private final Timer chunkTimer;
+    private final AtomicLong runRows = new AtomicLong();
+    private final AtomicLong runRowsPerSecond = new AtomicLong();
+
+    @Value("${order.auto-confirm.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${order.auto-confirm.after-days:7}")
+    private int afterDays;
+
+    public OrderAutoConfirmService(OrderRepository orderRepository,
+                                   CustomerOrderCacheVersion customerOrderCacheVersion,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.customerOrderCacheVersion = customerOrderCacheVersion;
+        this.transactionTemplate = transactionTemplate;
+        this.confirmedRows = meterRegistry.counter("orders.auto_confirm.rows");
+        this.chunkTimer = meterRegistry.timer("orders.auto_confirm.chunk");
+        meterRegistry.gauge("orders.auto_confirm.run.rows", runRows);
+        meterRegistry.gauge("orders.auto_confirm.run.rows_per_second", runRowsPerSecond);
+    }
+
+    public void autoConfirmOrders() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minusDays(afterDays);
+        long startedAt = System.nanoTime();
+        long afterId = 0L;
+        long total = 0;
+        int chunks = 0;
+        runRows.set(0);
+        runRowsPerSecond.set(0);
+
+        while (true) {
+            long lastId = afterId;
+            ChunkResult chunk = chunkTimer.record(() -> transactionTemplate.execute(status -> confirmChunk(cutoff, lastId)));
+            if (chunk == null || chunk.lastId() == null) {
+                break;
+            }
+            afterId = chunk.lastId();
+            total += chunk.updated();
+            chunks++;
+            confirmedRows.increment(chunk.updated());
+            runRows.set(total);
+            runRowsPerSecond.set(rowsPerSecond(total, startedAt));
+            log.info("Auto-confirm chunk {}: {} orders, {} so far ({} rows/s)",
+                    chunks, chunk.updated(), total, runRowsPerSecond.get());
+            customerOrderCacheVersion.bumpAll(chunk.customerIds());
+        }
+
+        log.info("Auto-confirmed {} orders delivered before {} in {} chunks ({} rows/s)",
+                total, cutoff, chunks, rowsPerSecond(total, startedAt));
+    }
+
+    private record ChunkResult(Long lastId, int updated, Set<Long> customerIds) {
+    }
+
+    private ChunkResult confirmChunk(OffsetDateTime cutoff, Long afterId) {
+        List<Object[]> candidates = orderRepository.findAutoConfirmCandidates(cutoff, afterId, PageRequest.of(0, chunkSize));
+        if (candidates.isEmpty()) {
+            return new ChunkResult(null, 0, Set.of());
+        }
+        List<Long> ids = new ArrayList<>(candidates.size());
+        Set<Long> customerIds = new HashSet<>();
+        for (Object[] row : candidates) {
+            ids.add((Long) row[0]);
+            customerIds.add((Long) row[1]);
+        }
+        int updated = orderRepository.confirmByIdIn(ids, OffsetDateTime.now());
+        return new ChunkResult(ids.get(ids.size() - 1), updated, customerIds);
+    }
+
+    private long rowsPerSecond(long rows, long startedAt) {
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        return rows * 1000 / elapsedMs;
+    }
+}
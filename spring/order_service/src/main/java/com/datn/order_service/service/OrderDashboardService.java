@@ -1,44 +1,53 @@
 package com.datn.order_service.service;
 
 import com.datn.order_service.client.ProductServiceClient;
+import com.datn.order_service.config.ReadReplica;
 import com.datn.order_service.dto.response.dashboard.*;
-import com.datn.order_service.repository.OrderItemRepository;
-import com.datn.order_service.repository.OrderRepository;
+import com.datn.order_service.repository.OrderDeliveredDailyStatRepository;
+import com.datn.order_service.repository.OrderStatusDailyStatRepository;
+import com.datn.order_service.repository.OrderVariantDailyStatRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Reads the dashboard from the daily rollup tables maintained by {@link OrderAnalyticsService}.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ReadReplica
 public class OrderDashboardService {
 
-    private final OrderRepository orderRepository;
-    private final OrderItemRepository itemRepository;
+    private final OrderStatusDailyStatRepository statusDailyStatRepository;
+    private final OrderDeliveredDailyStatRepository deliveredDailyStatRepository;
+    private final OrderVariantDailyStatRepository variantDailyStatRepository;
     private final ProductServiceClient productServiceClient;
 
     public OrderDashboardResponse getDashboard(OffsetDateTime from, OffsetDateTime to) {
+        LocalDate fromDay = OrderAnalyticsService.toDay(from);
+        LocalDate toDay = OrderAnalyticsService.toDay(to);
 
-        List<Object[]> result = orderRepository.getOrderSummary(from, to, 5L);
+        List<Object[]> result = deliveredDailyStatRepository.getOrderSummary(fromDay, toDay);
         Object[] summary = result.isEmpty() ? new Object[]{0L, 0.0} : result.get(0);
 
         long totalOrders = ((Number) summary[0]).longValue();
         double totalRevenue = ((Number) summary[1]).doubleValue();
 
-        long days = Duration.between(from.toLocalDate().atStartOfDay(), to.toLocalDate().atStartOfDay()).toDays() + 1;
-        OffsetDateTime prevFrom = from.minusDays(days);
-        OffsetDateTime prevTo   = to.minusDays(days);
+        long days = ChronoUnit.DAYS.between(fromDay, toDay) + 1;
+        LocalDate prevFrom = fromDay.minusDays(days);
+        LocalDate prevTo   = toDay.minusDays(days);
 
-        List<Object[]> preResult = orderRepository.getOrderSummary(prevFrom, prevTo, 5L);
+        List<Object[]> preResult = deliveredDailyStatRepository.getOrderSummary(prevFrom, prevTo);
         Object[] preSummary = preResult.isEmpty() ? new Object[]{0L, 0.0} : preResult.get(0);
 
         long prevTotalOrders = ((Number) preSummary[0]).longValue();
@@ -47,11 +56,11 @@ public class OrderDashboardService {
         OrderStats orderStats = new OrderStats(totalOrders, totalRevenue, prevTotalOrders, prevTotalRevenue);
 
         Map<String, Long> ordersByStatus = new HashMap<>();
-        orderRepository.getOrderStatusStats(from, to).forEach(r ->
+        statusDailyStatRepository.getOrderStatusStats(fromDay, toDay).forEach(r ->
                 ordersByStatus.put((String) r[0], ((Number) r[1]).longValue())
         );
 
-        List<DailyOrderStats> dailyStats = orderRepository.getDailyStats(from, to, 5L)
+        List<DailyOrderStats> dailyStats = deliveredDailyStatRepository.getDailyStats(fromDay, toDay)
                 .stream()
                 .map(r -> new DailyOrderStats(
                         ((java.sql.Date) r[0]).toLocalDate(),
@@ -61,7 +70,7 @@ public class OrderDashboardService {
                 ))
                 .toList();
 
-        List<TopProduct> topProducts = itemRepository.getTopProduct(from, to, PageRequest.of(0, 5))
+        List<TopProduct> topProducts = variantDailyStatRepository.getTopProduct(fromDay, toDay, PageRequest.of(0, 5))
                 .stream()
                 .map(r -> new TopProduct(
                         ((Number) r[0]).longValue(),
@@ -72,7 +81,7 @@ public class OrderDashboardService {
                 ))
                 .toList();
 
-        List<TopVariant> topVariants = itemRepository.getTopVariant(from, to, PageRequest.of(0, 5))
+        List<TopVariant> topVariants = variantDailyStatRepository.getTopVariant(fromDay, toDay, PageRequest.of(0, 5))
                 .stream()
                 .map(r -> new TopVariant(
                         ((Number) r[0]).longValue(),
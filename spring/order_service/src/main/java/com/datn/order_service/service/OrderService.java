@@ -3,23 +3,34 @@ package com.datn.order_service.service;
 import com.datn.order_service.client.*;
 import com.datn.order_service.client.dto.VariantDTO;
 import com.datn.order_service.client.dto.request.ReleaseStockRequest;
-import com.datn.order_service.client.dto.request.ReserveStockRequest;
-import com.datn.order_service.client.dto.request.ValidatePromotionRequest;
-import com.datn.order_service.client.dto.response.PromotionValidationResponse;
+import com.datn.order_service.client.dto.request.ReserveStockBatchRequest;
+import com.datn.order_service.client.dto.request.ReserveStockItemRequest;
+import com.datn.order_service.config.ReadReplica;
+import com.datn.order_service.dto.CheckoutQuote;
 import com.datn.order_service.dto.OrderEvent;
 import com.datn.order_service.dto.PageCacheWrapper;
 import com.datn.order_service.dto.request.*;
 import com.datn.order_service.dto.response.*;
+import com.datn.order_service.entity.CustomerOrderStat;
 import com.datn.order_service.entity.Order;
+import com.datn.order_service.entity.OrderFulfillment;
 import com.datn.order_service.entity.OrderItem;
 import com.datn.order_service.entity.OrderStatus;
+import com.datn.order_service.entity.ProductSnapshot;
+import com.datn.order_service.enums.FulfillmentState;
+import com.datn.order_service.enums.OrderStatusCode;
 import com.datn.order_service.enums.PaymentStatus;
 import com.datn.order_service.exception.OrderNotFoundException;
+import com.datn.order_service.repository.CustomerOrderStatRepository;
+import com.datn.order_service.repository.OrderFulfillmentRepository;
 import com.datn.order_service.repository.OrderItemRepository;
 import com.datn.order_service.repository.OrderRepository;
-import com.datn.order_service.repository.OrderStatusRepository;
+import com.datn.order_service.utils.CustomerOrderCacheVersion;
 import com.datn.order_service.utils.OrderEventPublisher;
+import com.datn.order_service.utils.OrderIdAllocator;
+import com.datn.order_service.utils.PaymentResultRegistry;
 import com.datn.order_service.utils.WebhookUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import feign.FeignException;
@@ -28,14 +39,15 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
@@ -43,12 +55,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -58,20 +78,26 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final OrderStatusRepository orderStatusRepository;
+    private final OrderStatusRegistry orderStatusRegistry;
+    private final OrderFulfillmentRepository orderFulfillmentRepository;
+    private final CustomerOrderStatRepository customerOrderStatRepository;
 //    private final ReturnOrderRepository returnOrderRepository;
 //    private final ReturnOrderItemRepository returnOrderItemRepository;
 
     private final DeliveryServiceClient deliveryServiceClient;
     private final InventoryServiceClient inventoryServiceClient;
-    private final PromotionServiceClient promotionServiceClient;
     private final ProductServiceClient productServiceClient;
-    private final CartServiceClient cartServiceClient;
+    private final OutboxService outboxService;
+    private final OrderIdAllocator orderIdAllocator;
+    private final CheckoutVariantResolver checkoutVariantResolver;
+    private final CheckoutPromotionResolver checkoutPromotionResolver;
+    private final CheckoutQuoteService checkoutQuoteService;
     //    private final CloudinaryService cloudinaryService;
     private final OrderEventPublisher eventPublisher;
-
-    @Autowired
-    private CacheManager cacheManager;
+    private final CustomerOrderCacheVersion customerOrderCacheVersion;
+    private final PaymentResultRegistry paymentResultRegistry;
+    private final OrderAnalyticsService orderAnalyticsService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
     private WebhookUtils webhookUtils;
@@ -79,22 +105,20 @@ public class OrderService {
     /**
      * Create order from cart (checkout all or selected items)
      */
-    @CacheEvict(
-            value = "customerOrders",
-            key = "#request.customerId + ':ALL:'"
-    )
     @Transactional
     public OrderDetailResponse createOrderFromCart(CreateOrderRequest request) {
         log.info("Creating order from cart for customer: {} (clearCart={})",
                 request.getCustomerId(), request.getClearCart());
 
         OrderDetailResponse orderResponse = createOrderInternal(request);
+        customerOrderCacheVersion.bump(request.getCustomerId());
 
-        // Handle cart based on clearCart flag
-        handleCartAfterCheckout(request.getCustomerId(), request.getClearCart(),
+        // Cart cleanup is delivered asynchronously by the outbox relay
+        outboxService.enqueueCartCheckout(orderResponse.getId(), request.getCustomerId(), request.getClearCart(),
                 extractVariantIds(request.getItems()));
 
-        eventPublisher.publish(new OrderEvent("ORDER_CREATED", orderResponse.getId(), orderResponse.getStatusName()));
+        eventPublisher.publish(new OrderEvent("ORDER_CREATED", orderResponse.getId(), orderResponse.getStatusName(),
+                orderResponse.getCustomerId(), orderResponse.getWarehouseData()));
         return orderResponse;
     }
 
@@ -120,82 +144,59 @@ public class OrderService {
                 .paymentMethod(request.getPaymentMethod())
                 .promotionCode(request.getPromotionCode())
                 .notes(request.getNotes())
+                .quoteId(request.getQuoteId())
                 .build();
 
         // Create order without touching cart
         OrderDetailResponse orderResponse = createOrderInternal(orderRequest);
+        customerOrderCacheVersion.bump(request.getCustomerId());
 
         log.info("Buy Now order created successfully - OrderNumber: {}",
                 orderResponse.getOrderNumber());
 
-        eventPublisher.publish(new OrderEvent("ORDER_CREATED", orderResponse.getId(), orderResponse.getStatusName()));
+        eventPublisher.publish(new OrderEvent("ORDER_CREATED", orderResponse.getId(), orderResponse.getStatusName(),
+                orderResponse.getCustomerId(), orderResponse.getWarehouseData()));
         return orderResponse;
     }
 
     @Transactional
     private OrderDetailResponse createOrderInternal(CreateOrderRequest request) {
         // 1. Get initial order status (PENDING)
-        OrderStatus pendingStatus = orderStatusRepository.findByName("PENDING")
+        OrderStatus pendingStatus = orderStatusRegistry.find(OrderStatusCode.PENDING)
                 .orElseThrow(() -> new RuntimeException("Pending status not found"));
 
-        // 2. Calculate order amounts
-        BigDecimal subtotal = calculateSubtotal(request.getItems());
-        BigDecimal discountAmount = BigDecimal.ZERO;
-
-        // 3. Apply promotion if provided
-        Long promotionId = null;
-        if (request.getPromotionCode() != null && !request.getPromotionCode().isEmpty()) {
-            ValidatePromotionRequest promoRequest = ValidatePromotionRequest.builder()
-                    .code(request.getPromotionCode())
-                    .customerId(request.getCustomerId())
-                    .orderAmount(subtotal)
-                    .productIds(request.getItems().stream()
-                            .map(OrderItemRequest::getProductId)
-                            .collect(Collectors.toList()))
-                    .build();
-
-            try {
-                ApiResponse<PromotionValidationResponse> apiResponse =
-                        promotionServiceClient.validatePromotion(promoRequest);
-
-                log.info("Promotion API response - success: {}, message: {}",
-                        apiResponse.isSuccess(), apiResponse.getMessage());
-
-                if (apiResponse.isSuccess() && apiResponse.getData() != null) {
-                    PromotionValidationResponse promoResponse = apiResponse.getData();
-
-                    if (Boolean.TRUE.equals(promoResponse.getIsValid())) {
-                        discountAmount = promoResponse.getDiscountAmount();
-                        promotionId = promoResponse.getPromotion().getId();
-                        log.info("Áp dụng khuyến mãi thành công - Mã: {}, Giảm: {}",
-                                request.getPromotionCode(), discountAmount);
-                    } else {
-                        log.warn("Xác thực khuyến mãi thất bại: {}", promoResponse.getMessage());
-                        throw new RuntimeException("Mã khuyến mãi không hợp lệ hoặc đã hết hạn");
-                    }
-                } else {
-                    log.warn("Gọi API khuyến mãi không thành công: {}", apiResponse.getMessage());
-                    throw new RuntimeException("Không thể xác thực mã khuyến mãi, vui lòng thử lại");
-                }
-
-            } catch (FeignException e) {
-                log.error("Lỗi Feign ...", e);
-                throw new RuntimeException("Không thể kết nối tới dịch vụ khuyến mãi", e);
-            } catch (RuntimeException e) {
-                throw e;
-            } catch (Exception e) {
-                log.error("Lỗi không xác định khi gọi service khuyến mãi", e);
-                throw new RuntimeException("Có lỗi xảy ra khi xử lý khuyến mãi", e);
-            }
+        // 2. Resolve variants and promotion, from the checkout quote when one is still valid
+        Optional<CheckoutQuote> quote = checkoutQuoteService.redeem(request);
+        Map<Long, VariantDTO> variants;
+        BigDecimal subtotal;
+        BigDecimal discountAmount;
+        Long promotionId;
+        if (quote.isPresent()) {
+            variants = quote.get().getVariants();
+            subtotal = quote.get().getSubtotal();
+            discountAmount = quote.get().getDiscountAmount();
+            promotionId = quote.get().getPromotionId();
+        } else {
+            variants = checkoutVariantResolver.resolve(request.getItems());
+            subtotal = calculateSubtotal(request.getItems(), variants);
+
+            // 3. Apply promotion if provided
+            CheckoutPromotionResolver.AppliedPromotion promotion = checkoutPromotionResolver.resolve(
+                    request.getCustomerId(), request.getPromotionCode(), subtotal, request.getItems());
+            discountAmount = promotion.discountAmount();
+            promotionId = promotion.promotionId();
         }
 
         // phi giao hang+phat sinh
         BigDecimal fee = BigDecimal.valueOf(0);
         BigDecimal totalAmount = subtotal.subtract(discountAmount).add(fee);
 
-        // 4. Create order
+        // 4. Create order with an id taken from the sequence block, so it is inserted only once
+        Long orderId = orderIdAllocator.nextId();
+        String orderNumber = generateOrderNumber(orderId);
         Order order = Order.builder()
-                .orderNumber("TEMP") // Will be updated after save
+                .id(orderId)
+                .orderNumber(orderNumber)
                 .customerId(request.getCustomerId())
                 .subtotal(subtotal)
                 .fee(fee)
@@ -213,16 +214,10 @@ public class OrderService {
                 .warehouseData(null)
                 .build();
 
-        // 5. Generate and update orderNumber with ID
-        order = orderRepository.save(order);
-        String orderNumber = generateOrderNumber(order.getId());
-        order.setOrderNumber(orderNumber);
-        order = orderRepository.save(order);
-
-        log.info("Order created with number: {}", orderNumber);
+        log.info("Order number allocated: {}", orderNumber);
 
         // === TRACK SUCCESSFULLY RESERVED STOCKS AND DELIVERY ORDERS===
-        List<ReserveStockRequest> reservedStocks = new ArrayList<>();
+        List<ReserveStockItemRequest> reservedStocks = new ArrayList<>();
 
         // 6. Create order items and calculate revenue
         List<OrderItem> orderItems = new ArrayList<>();
@@ -231,86 +226,72 @@ public class OrderService {
 
         try {
             for (OrderItemRequest itemReq : request.getItems()) {
-                try {
-                    if (itemReq.getVariantId() == null) {
-                        log.error("Variant ID is required for item in order creation");
-                        throw new RuntimeException("Variant ID is required for all items in the order.");
-                    }
+                VariantDTO variant = variants.get(itemReq.getVariantId());
 
-                    // Get variant information from Product Service
-                    VariantDTO variant = productServiceClient.getVariant(itemReq.getVariantId()).getBody();
-
-                    // Validate variant availability
-                    if (variant == null) {
-                        throw new RuntimeException("Variant not found with ID: " + itemReq.getVariantId());
-                    }
-                    if (!variant.isActive() || variant.getStatus().equals("OUT_OF_STOCK")) {
-                        log.error("Variant {} is not available for purchase", itemReq.getVariantId());
-                        throw new RuntimeException("Variant is not available: " + itemReq.getVariantId());
-                    }
-
-                    BigDecimal unitPrice = variant.getSellingPrice();
-                    BigDecimal importPrice = variant.getImportPrice() != null ? variant.getImportPrice() : BigDecimal.ZERO;
-
-                    if (unitPrice == null) {
-                        log.error("Selling price is null for variant: {}", itemReq.getVariantId());
-                        throw new RuntimeException("Selling price not found for variant ID: " + itemReq.getVariantId());
-                    }
+                // Validate variant availability
+                if (!variant.isActive() || variant.getStatus().equals("OUT_OF_STOCK")) {
+                    log.error("Variant {} is not available for purchase", itemReq.getVariantId());
+                    throw new RuntimeException("Variant is not available: " + itemReq.getVariantId());
+                }
 
-                    BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(itemReq.getQuantity()));
-                    BigDecimal itemProfit = (unitPrice.subtract(importPrice)).multiply(BigDecimal.valueOf(itemReq.getQuantity()));
-                    itemsProfit = itemsProfit.add(itemProfit);
+                BigDecimal unitPrice = variant.getSellingPrice();
+                BigDecimal importPrice = variant.getImportPrice() != null ? variant.getImportPrice() : BigDecimal.ZERO;
 
-                    OrderItem orderItem = OrderItem.builder()
-                            .order(order)
-                            .variantId(itemReq.getVariantId())
-                            .quantity(itemReq.getQuantity())
-                            .importPrice(importPrice)
-                            .unitPrice(unitPrice)
-                            .totalPrice(totalPrice)
-                            .productSnapshot(createVariantSnapshot(variant))
-                            .build();
+                if (unitPrice == null) {
+                    log.error("Selling price is null for variant: {}", itemReq.getVariantId());
+                    throw new RuntimeException("Selling price not found for variant ID: " + itemReq.getVariantId());
+                }
 
-                    orderItems.add(orderItem);
+                BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(itemReq.getQuantity()));
+                BigDecimal itemProfit = (unitPrice.subtract(importPrice)).multiply(BigDecimal.valueOf(itemReq.getQuantity()));
+                itemsProfit = itemsProfit.add(itemProfit);
+
+                OrderItem orderItem = OrderItem.builder()
+                        .order(order)
+                        .variantId(itemReq.getVariantId())
+                        .quantity(itemReq.getQuantity())
+                        .importPrice(importPrice)
+                        .unitPrice(unitPrice)
+                        .totalPrice(totalPrice)
+                        .productSnapshot(ProductSnapshot.from(variant))
+                        .build();
+
+                orderItems.add(orderItem);
+            }
 
-                    // === RESERVE STOCK WITH CONFIRMATION ===
-                    ReserveStockRequest stockRequest = ReserveStockRequest.builder()
+            // === RESERVE STOCK FOR ALL ITEMS IN ONE CALL (ALL OR NOTHING) ===
+            List<ReserveStockItemRequest> stockItems = request.getItems().stream()
+                    .map(itemReq -> ReserveStockItemRequest.builder()
                             .variantId(itemReq.getVariantId())
                             .quantity(itemReq.getQuantity())
-                            .orderNumber(order.getOrderNumber())
-                            .build();
-
-                    boolean stockReserved = false;
-                    try {
-                        Map<Long,Integer> reserveStockMap = inventoryServiceClient.reserveStock(stockRequest).getData();
-                        itemWarehouseData.add(reserveStockMap);
-                        orderItem.setItemWarehouseData(reserveStockMap);
-                        log.info("Stock reserved - ProductId: {}, VariantId: {}, Quantity: {}",
-                                variant.getProductId(), itemReq.getVariantId(), itemReq.getQuantity());
-                        stockReserved = true;
-                    } catch (FeignException e) {
-                        log.error("Failed to reserve stock for variant {}: Status={}",
-                                itemReq.getVariantId(), e.status());
-                        throw new RuntimeException("Sản phẩm " + variant.getName() + " không đủ để hoàn tất đơn đặt hàng!");
-                    } catch (Exception e) {
-                        log.error("Unexpected error reserving stock for variant: {}", itemReq.getVariantId(), e);
-                        throw new RuntimeException("Failed to reserve stock for variant ID: " + itemReq.getVariantId());
-                    }
-
-                    // Only track if successfully reserved
-                    if (stockReserved) {
-                        reservedStocks.add(stockRequest);
-                    }
-
-                } catch (FeignException e) {
-                    log.error("Failed to get variant info for variant {}: Status={}",
-                            itemReq.getVariantId(), e.status());
-                    throw new RuntimeException("Variant not found with ID: " + itemReq.getVariantId());
+                            .build())
+                    .toList();
+            try {
+                List<Map<Long, Integer>> reserveStockMaps = inventoryServiceClient.reserveStockBatch(
+                        ReserveStockBatchRequest.builder()
+                                .orderNumber(order.getOrderNumber())
+                                .items(stockItems)
+                                .build()
+                ).getData();
+                for (int i = 0; i < orderItems.size(); i++) {
+                    Map<Long, Integer> reserveStockMap = reserveStockMaps.get(i);
+                    itemWarehouseData.add(reserveStockMap);
+                    orderItems.get(i).setItemWarehouseData(reserveStockMap);
                 }
+                reservedStocks.addAll(stockItems);
+                log.info("Stock reserved for {} items of order {}", stockItems.size(), orderNumber);
+            } catch (FeignException e) {
+                log.error("Failed to reserve stock for order {}: Status={}", orderNumber, e.status());
+                if (orderItems.size() == 1) {
+                    throw new RuntimeException("Sản phẩm " + variants.get(orderItems.get(0).getVariantId()).getName()
+                            + " không đủ để hoàn tất đơn đặt hàng!");
+                }
+                throw new RuntimeException("Một số sản phẩm không đủ để hoàn tất đơn đặt hàng!");
+            } catch (Exception e) {
+                log.error("Unexpected error reserving stock for order: {}", orderNumber, e);
+                throw new RuntimeException("Failed to reserve stock for order: " + orderNumber);
             }
 
-            orderItemRepository.saveAll(orderItems);
-            log.info("Saved {} order items", orderItems.size());
             BigDecimal revenue = itemsProfit.subtract(fee).subtract(discountAmount != null ? discountAmount : BigDecimal.ZERO);
             List<Long> warehouseKeys = itemWarehouseData.stream()
                     .flatMap(map -> map.keySet().stream())
@@ -318,31 +299,19 @@ public class OrderService {
                     .toList();
             order.setWarehouseData(warehouseKeys);
             order.setRevenue(revenue);
-            orderRepository.save(order);
 
-            // 7. Record promotion usage if applicable
+            // 5. One insert for the order and one JDBC batch for the items.
+            // Flush here so constraint errors still reach the stock release below.
+            em.persist(order);
+            orderItemRepository.saveAll(orderItems);
+            createFulfillments(order.getId(), warehouseKeys);
+            em.flush();
+            log.info("Saved order {} with {} order items", orderNumber, orderItems.size());
+            orderAnalyticsService.recordOrderCreated(order, orderItems);
+
+            // 7. Record promotion usage if applicable (delivered by the outbox relay)
             if (promotionId != null && discountAmount != null && discountAmount.compareTo(BigDecimal.ZERO) > 0) {
-                try {
-                    ApiResponse<Void> usageResponse = promotionServiceClient.recordPromotionUsage(
-                            promotionId,
-                            request.getCustomerId(),
-                            order.getId()
-                    ).getBody();
-
-                    assert usageResponse != null;
-                    if (usageResponse.isSuccess()) {
-                        log.info("Ghi nhận sử dụng mã khuyến mãi thành công - ID: {}", promotionId);
-                    } else {
-                        log.warn("Ghi nhận sử dụng mã khuyến mãi thất bại: {}", usageResponse.getMessage());
-                        throw new RuntimeException("Không thể ghi nhận sử dụng mã khuyến mãi, vui lòng thử lại.");
-                    }
-                } catch (FeignException e) {
-                    log.error("Lỗi Feign khi ghi nhận mã khuyến mãi: Status={}, Message={}", e.status(), e.getMessage());
-                    throw new RuntimeException("Không thể kết nối tới dịch vụ khuyến mãi, vui lòng thử lại sau.");
-                } catch (Exception e) {
-                    log.error("Lỗi không xác định khi ghi nhận sử dụng mã khuyến mãi", e);
-                    throw new RuntimeException("Đã xảy ra lỗi trong quá trình ghi nhận mã khuyến mãi.");
-                }
+                outboxService.enqueuePromotionUsage(order.getId(), promotionId, request.getCustomerId());
             }
 
             log.info("Order created successfully - OrderNumber: {}, TotalAmount: {}",
@@ -373,39 +342,6 @@ public class OrderService {
         }
     }
 
-    private void handleCartAfterCheckout(Long customerId, Boolean clearCart, Set<Long> variantIds) {
-        try {
-            if (Boolean.TRUE.equals(clearCart)) {
-                // Clear entire cart
-                ApiResponse<Void> cartResponse = cartServiceClient.clearCart(customerId);
-                if (cartResponse.isSuccess()) {
-                    log.info("Cart cleared completely for customer: {}", customerId);
-                } else {
-                    log.warn("Failed to clear cart: {}", cartResponse.getMessage());
-                }
-            } else {
-                // Remove only selected items
-                for (Long variantId : variantIds) {
-                    try {
-                        ApiResponse<Void> removeResponse =
-                                cartServiceClient.removeCartItem(customerId, variantId);
-                        if (removeResponse.isSuccess()) {
-                            log.info("Removed variant {} from cart for customer: {}",
-                                    variantId, customerId);
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to remove variant {} from cart", variantId, e);
-                    }
-                }
-                log.info("Removed {} selected items from cart", variantIds.size());
-            }
-        } catch (FeignException e) {
-            log.error("Feign error handling cart: Status={}", e.status());
-        } catch (Exception e) {
-            log.error("Failed to handle cart after checkout", e);
-        }
-    }
-
     private Set<Long> extractVariantIds(List<OrderItemRequest> items) {
         return items.stream()
                 .map(OrderItemRequest::getVariantId)
@@ -419,23 +355,23 @@ public class OrderService {
 
         List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
 
-        return mapToDetailResponse(order, items, showRevenue);
+        OrderDetailResponse response = mapToDetailResponse(order, items, showRevenue);
+        response.setFulfillments(findFulfillments(order.getId()));
+        return response;
     }
 
     @Cacheable(
             value = "customerOrders",
-            key = "#customerId + ':ALL:'",
-            condition = "(#statusName == null || #statusName == 'ALL') && #pageable.pageNumber == 0"
+            key = "@customerOrderCacheVersion.key(#customerId, #statusName, #pageable.pageNumber, #pageable.pageSize, #pageable.sort.toString())"
     )
     public PageCacheWrapper<OrderDetailResponse> getCustomerOrders(Long customerId, String statusName, Pageable pageable) {
         log.info("Getting orders for customer: {}", customerId);
 
         Page<Order> orders = orderRepository.findByCustomerIdAndStatus(customerId, statusName, pageable);
+        Map<Long, List<OrderItemResponse>> itemsByOrder = findListingItems(orders.getContent());
 
-        Page<OrderDetailResponse> pageResult = orders.map(order -> {
-            List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
-            return mapToDetailResponse(order, items, false);
-        });
+        Page<OrderDetailResponse> pageResult = orders.map(order ->
+                toDetailResponse(order, itemsByOrder.getOrDefault(order.getId(), List.of()), false));
 
         return new PageCacheWrapper<>(
                 pageResult.getContent(),
@@ -456,9 +392,23 @@ public class OrderService {
                 .map(this::mapToResponse);
     }
 
+    private static final Pattern ORDER_NUMBER_PATTERN = Pattern.compile("^DATN-\\d{8}-(\\d+)$", Pattern.CASE_INSENSITIVE);
+    private static final int DEFAULT_KEYSET_PAGE_SIZE = 20;
+    private static final int MAX_KEYSET_PAGE_SIZE = 100;
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final TypeReference<Map<Long, Integer>> ITEM_WAREHOUSE_DATA_TYPE = new TypeReference<>() {
+    };
+    private static final Set<OrderStatusCode> INTERNAL_STATUS_CHANGES = EnumSet.of(
+            OrderStatusCode.SHIPPED, OrderStatusCode.DELIVERED, OrderStatusCode.PROCESSING, OrderStatusCode.CANCELLED);
+    private static final List<String> EXPORT_CSV_COLUMNS = List.of(
+            "id", "orderNumber", "customerId", "statusName", "paymentMethod", "paymentStatus",
+            "subtotal", "fee", "discountAmount", "totalAmount", "orderDate", "deliveredDate",
+            "shippingName", "shippingPhone", "shippingAddress");
+
     @PersistenceContext
     private EntityManager em;
 
+    @ReadReplica
     public Page<OrderResponse> getOrdersAdvanced(
             Integer page,
             Integer size,
@@ -468,130 +418,89 @@ public class OrderService {
             LocalDate toDate,
             boolean showRevenue,
             Long warehouseId,
-            boolean sortByDeliveredDate) {
+            boolean sortByDeliveredDate,
+            boolean approximateTotal) {
 
         Pageable pageable = (page == null || size == null)
                 ? Pageable.unpaged()
                 : PageRequest.of(page, size, Sort.by("id").descending());
 
-        LocalDateTime startDateTime = fromDate != null ? fromDate.atStartOfDay() : null;
-        LocalDateTime endDateTime = toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
-
-        Long customerId = null;
-        if (keyword != null && keyword.toUpperCase().startsWith("KH")) {
-            try {
-                customerId = Long.parseLong(keyword.substring(3));
-                keyword = null; // avoid matching orderNumber with "CUS..."
-            } catch (NumberFormatException e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Customer ID không hợp lệ!");
-            }
-        }
-
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
-        Root<Order> root = cq.from(Order.class);
+        OrderSearchFilter filter = parseSearchFilter(status, keyword, "KH", fromDate, toDate,
+                sortByDeliveredDate, warehouseId);
 
-        List<Predicate> predicates = new ArrayList<>();
+        List<Order> results = searchOrders(filter, pageable, null, null);
+        long total = countOrders(filter, approximateTotal);
 
-        if (status != null && !status.isBlank()) {
-            predicates.add(cb.equal(root.get("status").get("name"), status));
-        }
+        if (showRevenue)
+            return new PageImpl<>(results.stream().map(this::mapToOrderRevenueResponse).toList(), pageable, total);
+        return new PageImpl<>(
+                results.stream().map(this::mapToResponse).toList(),
+                pageable,
+                total
+        );
+    }
 
-        if (startDateTime != null) {
-            if(sortByDeliveredDate)
-                predicates.add(cb.greaterThanOrEqualTo(root.get("deliveredDate"), startDateTime));
-            else
-                predicates.add(cb.greaterThanOrEqualTo(root.get("orderDate"), startDateTime));
-        }
-        if (endDateTime != null) {
-            if(sortByDeliveredDate)
-                predicates.add(cb.lessThan(root.get("deliveredDate"), endDateTime));
-            else
-                predicates.add(cb.lessThan(root.get("orderDate"), endDateTime));
-        }
+    /**
+     * Keyset variant of getOrdersAdvanced: pages by (orderDate, id) descending, so deep pages cost
+     * the same as the first one. The total is only computed when includeTotal is set.
+     */
+    @ReadReplica
+    public CursorPageResponse<OrderResponse> getOrdersAdvancedKeyset(
+            String cursor,
+            Integer size,
+            String status,
+            String keyword,
+            LocalDate fromDate,
+            LocalDate toDate,
+            boolean showRevenue,
+            Long warehouseId,
+            boolean sortByDeliveredDate,
+            boolean includeTotal) {
 
-        if (warehouseId != null) {
-            predicates.add(cb.isTrue(cb.function(
-                    "jsonb_contains", Boolean.class,
-                    root.get("warehouseData"),
-                    cb.literal("[" + warehouseId + "]")
-            )));
-        }
+        int pageSize = Math.min(size == null || size <= 0 ? DEFAULT_KEYSET_PAGE_SIZE : size, MAX_KEYSET_PAGE_SIZE);
+        OrderSearchFilter filter = parseSearchFilter(status, keyword, "KH", fromDate, toDate,
+                sortByDeliveredDate, warehouseId);
 
-        if (keyword != null && !keyword.isBlank() || customerId != null) {
-            List<Predicate> orPredicates = new ArrayList<>();
-            if (keyword != null && !keyword.isBlank()) {
-                orPredicates.add(cb.like(root.get("orderNumber"), "%" + keyword + "%"));
-            }
-            if (customerId != null) {
-                orPredicates.add(cb.equal(root.get("customerId"), customerId));
+        OffsetDateTime afterDate = null;
+        Long afterId = null;
+        if (cursor != null) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor)).split("\\|", 2);
+                afterDate = OffsetDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor không hợp lệ!");
             }
-            predicates.add(cb.or(orPredicates.toArray(new Predicate[0])));
-        }
-
-        cq.where(cb.and(predicates.toArray(new Predicate[0])));
-        cq.orderBy(cb.desc(root.get("orderDate")));
-
-        TypedQuery<Order> query = em.createQuery(cq);
-
-        if (pageable.isPaged()) {
-            query.setFirstResult((int) pageable.getOffset());
-            query.setMaxResults(pageable.getPageSize());
         }
 
-        List<Order> results = query.getResultList();
-
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<Order> countRoot = countQuery.from(Order.class);
-        countQuery.select(cb.count(countRoot));
-        List<Predicate> countPredicates = new ArrayList<>();
-
-        if (status != null && !status.isBlank()) {
-            countPredicates.add(cb.equal(countRoot.get("status").get("name"), status));
+        // One extra row tells whether another page exists without counting
+        List<Order> results = searchOrders(filter, PageRequest.of(0, pageSize + 1), afterDate, afterId);
+        boolean hasNext = results.size() > pageSize;
+        if (hasNext) {
+            results = results.subList(0, pageSize);
         }
 
-        if (startDateTime != null) {
-            if(sortByDeliveredDate)
-                countPredicates.add(cb.greaterThanOrEqualTo(countRoot.get("deliveredDate"), startDateTime));
-            else
-                countPredicates.add(cb.greaterThanOrEqualTo(countRoot.get("orderDate"), startDateTime));
-        }
-        if (endDateTime != null) {
-            if(sortByDeliveredDate)
-                countPredicates.add(cb.lessThan(countRoot.get("deliveredDate"), endDateTime));
-            else
-                countPredicates.add(cb.lessThan(countRoot.get("orderDate"), endDateTime));
-        }
-        if (warehouseId != null) {
-            countPredicates.add(cb.isTrue(cb.function(
-                    "jsonb_contains", Boolean.class,
-                    countRoot.get("warehouseData"),
-                    cb.literal("[" + warehouseId + "]")
-            )));
+        String nextCursor = null;
+        if (hasNext) {
+            Order last = results.get(results.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getOrderDate() + "|" + last.getId()).getBytes());
         }
 
-        if (keyword != null && !keyword.isBlank() || customerId != null) {
-            List<Predicate> orPredicatesCount = new ArrayList<>();
-            if (keyword != null && !keyword.isBlank()) {
-                orPredicatesCount.add(cb.like(countRoot.get("orderNumber"), "%" + keyword + "%"));
-            }
-            if (customerId != null) {
-                orPredicatesCount.add(cb.equal(countRoot.get("customerId"), customerId));
-            }
-            countPredicates.add(cb.or(orPredicatesCount.toArray(new Predicate[0])));
-        }
-        countQuery.where(cb.and(countPredicates.toArray(new Predicate[0])));
-        Long total = em.createQuery(countQuery).getSingleResult();
+        List<OrderResponse> content = showRevenue
+                ? results.stream().map(this::mapToOrderRevenueResponse).toList()
+                : results.stream().map(this::mapToResponse).toList();
 
-        if (showRevenue)
-            return new PageImpl<>(results.stream().map(this::mapToOrderRevenueResponse).toList(), pageable, total);
-        return new PageImpl<>(
-                results.stream().map(this::mapToResponse).toList(),
-                pageable,
-                total
-        );
+        return CursorPageResponse.<OrderResponse>builder()
+                .content(content)
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(includeTotal ? countOrders(filter, true) : null)
+                .build();
     }
 
+    @ReadReplica
     public Page<OrderDetailResponse> getOrdersDetailsAdvanced(
             Integer page,
             Integer size,
@@ -604,94 +513,260 @@ public class OrderService {
                 ? Pageable.unpaged()
                 : PageRequest.of(page, size, Sort.by("id").descending());
 
-        LocalDateTime startDateTime = fromDate != null ? fromDate.atStartOfDay() : null;
-        LocalDateTime endDateTime = toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
+        OrderSearchFilter filter = parseSearchFilter(status, keyword, "CUS", fromDate, toDate, false, null);
 
-        Long customerId = null;
-        if (keyword != null && keyword.toUpperCase().startsWith("CUS")) {
+        List<Order> results = searchOrders(filter, pageable, null, null);
+        long total = countOrders(filter, false);
+
+        Map<Long, List<OrderItemResponse>> itemsByOrder = findListingItems(results);
+
+        return new PageImpl<>(
+                results.stream().map(order ->
+                        toDetailResponse(order, itemsByOrder.getOrDefault(order.getId(), List.of()), false)
+                ).toList(),
+                pageable,
+                total
+        );
+    }
+
+    /**
+     * Search filters parsed once from the request, shared by the data and count queries
+     */
+    private static class OrderSearchFilter {
+        String status;
+        String keyword;
+        Long customerId;
+        Long orderId;
+        String orderNumber;
+        LocalDateTime startDateTime;
+        LocalDateTime endDateTime;
+        boolean byDeliveredDate;
+        Long warehouseId;
+
+        boolean isEmpty() {
+            return status == null && keyword == null && customerId == null && orderId == null
+                    && startDateTime == null && endDateTime == null && warehouseId == null;
+        }
+    }
+
+    private OrderSearchFilter parseSearchFilter(String status, String keyword, String customerPrefix,
+                                                LocalDate fromDate, LocalDate toDate,
+                                                boolean byDeliveredDate, Long warehouseId) {
+        OrderSearchFilter filter = new OrderSearchFilter();
+        filter.status = (status != null && !status.isBlank()) ? status : null;
+        filter.startDateTime = fromDate != null ? fromDate.atStartOfDay() : null;
+        filter.endDateTime = toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
+        filter.byDeliveredDate = byDeliveredDate;
+        filter.warehouseId = warehouseId;
+
+        if (keyword == null || keyword.isBlank()) {
+            return filter;
+        }
+        keyword = keyword.trim();
+        Matcher orderNumberMatcher = ORDER_NUMBER_PATTERN.matcher(keyword);
+        if (keyword.toUpperCase().startsWith(customerPrefix)) {
             try {
-                customerId = Long.parseLong(keyword.substring(3));
-                keyword = null; // avoid matching orderNumber with "CUS..."
+                filter.customerId = Long.parseLong(keyword.substring(customerPrefix.length()));
             } catch (NumberFormatException e) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Customer ID không hợp lệ!");
             }
+        } else if (orderNumberMatcher.matches()) {
+            // A full order number carries its id, so it resolves to a primary key lookup
+            try {
+                filter.orderId = Long.parseLong(orderNumberMatcher.group(1));
+                filter.orderNumber = keyword.toUpperCase();
+            } catch (NumberFormatException e) {
+                filter.keyword = keyword;
+            }
+        } else {
+            filter.keyword = keyword;
         }
+        return filter;
+    }
 
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
-        Root<Order> root = cq.from(Order.class);
-
+    private List<Predicate> buildSearchPredicates(CriteriaBuilder cb, CriteriaQuery<?> query,
+                                                  Root<Order> root, OrderSearchFilter filter) {
         List<Predicate> predicates = new ArrayList<>();
 
-        if (status != null && !status.isBlank()) {
-            predicates.add(cb.equal(root.get("status").get("name"), status));
+        if (filter.orderId != null) {
+            predicates.add(cb.equal(root.get("id"), filter.orderId));
+            predicates.add(cb.equal(root.get("orderNumber"), filter.orderNumber));
         }
 
-        if (startDateTime != null) {
-            predicates.add(cb.greaterThanOrEqualTo(root.get("orderDate"), startDateTime));
+        if (filter.status != null) {
+            predicates.add(cb.equal(root.get("status").get("name"), filter.status));
         }
-        if (endDateTime != null) {
-            predicates.add(cb.lessThan(root.get("orderDate"), endDateTime));
+
+        String dateField = filter.byDeliveredDate ? "deliveredDate" : "orderDate";
+        if (filter.startDateTime != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get(dateField), filter.startDateTime));
+        }
+        if (filter.endDateTime != null) {
+            predicates.add(cb.lessThan(root.get(dateField), filter.endDateTime));
         }
 
-        if (keyword != null && !keyword.isBlank() || customerId != null) {
-            List<Predicate> orPredicates = new ArrayList<>();
-            if (keyword != null && !keyword.isBlank()) {
-                orPredicates.add(cb.like(root.get("orderNumber"), "%" + keyword + "%"));
-            }
-            if (customerId != null) {
-                orPredicates.add(cb.equal(root.get("customerId"), customerId));
-            }
-            predicates.add(cb.or(orPredicates.toArray(new Predicate[0])));
+        if (filter.warehouseId != null) {
+            Subquery<Long> fulfillment = query.subquery(Long.class);
+            Root<OrderFulfillment> f = fulfillment.from(OrderFulfillment.class);
+            fulfillment.select(f.get("orderId")).where(
+                    cb.equal(f.get("warehouseId"), filter.warehouseId),
+                    cb.equal(f.get("orderId"), root.get("id")));
+            predicates.add(cb.exists(fulfillment));
+        }
+
+        if (filter.keyword != null) {
+            predicates.add(cb.like(root.get("orderNumber"), "%" + filter.keyword + "%"));
+        }
+        if (filter.customerId != null) {
+            predicates.add(cb.equal(root.get("customerId"), filter.customerId));
+        }
+        return predicates;
+    }
+
+    private List<Order> searchOrders(OrderSearchFilter filter, Pageable pageable,
+                                     OffsetDateTime afterDate, Long afterId) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> root = cq.from(Order.class);
+
+        List<Predicate> predicates = buildSearchPredicates(cb, cq, root, filter);
+        if (afterDate != null && afterId != null) {
+            Path<OffsetDateTime> orderDate = root.get("orderDate");
+            predicates.add(cb.or(
+                    cb.lessThan(orderDate, afterDate),
+                    cb.and(cb.equal(orderDate, afterDate), cb.lessThan(root.get("id"), afterId))
+            ));
         }
 
         cq.where(cb.and(predicates.toArray(new Predicate[0])));
-        cq.orderBy(cb.desc(root.get("orderDate")));
+        cq.orderBy(cb.desc(root.get("orderDate")), cb.desc(root.get("id")));
 
         TypedQuery<Order> query = em.createQuery(cq);
-
         if (pageable.isPaged()) {
             query.setFirstResult((int) pageable.getOffset());
             query.setMaxResults(pageable.getPageSize());
         }
+        return query.getResultList();
+    }
+
+    /**
+     * Streams every order matching the admin search to the output as CSV or NDJSON.
+     * Rows are read through a forward-only cursor and the persistence context is cleared
+     * after each fetch, so memory stays flat however many orders are exported.
+     */
+    @Transactional(readOnly = true)
+    public void exportOrders(
+            String status,
+            String keyword,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Long warehouseId,
+            boolean sortByDeliveredDate,
+            boolean showRevenue,
+            boolean ndjson,
+            OutputStream out) throws IOException {
 
-        List<Order> results = query.getResultList();
+        OrderSearchFilter filter = parseSearchFilter(status, keyword, "KH", fromDate, toDate,
+                sortByDeliveredDate, warehouseId);
 
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<Order> countRoot = countQuery.from(Order.class);
-        countQuery.select(cb.count(countRoot));
-        List<Predicate> countPredicates = new ArrayList<>();
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> root = cq.from(Order.class);
+        root.fetch("status");
+        cq.where(cb.and(buildSearchPredicates(cb, cq, root, filter).toArray(new Predicate[0])));
+        cq.orderBy(cb.desc(root.get("orderDate")), cb.desc(root.get("id")));
+
+        @SuppressWarnings("unchecked")
+        org.hibernate.query.Query<Order> query = em.createQuery(cq).unwrap(org.hibernate.query.Query.class);
+        query.setReadOnly(true);
+        query.setFetchSize(EXPORT_FETCH_SIZE);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (!ndjson) {
+            // BOM so Excel opens the Vietnamese names as UTF-8
+            writer.write('\uFEFF');
+            writer.write(String.join(",", EXPORT_CSV_COLUMNS));
+            if (showRevenue) {
+                writer.write(",revenue");
+            }
+            writer.write('\n');
+        }
+
+        long exported = 0;
+        try (ScrollableResults<Order> rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Order order = rows.get();
+                if (ndjson) {
+                    OrderResponse row = showRevenue ? mapToOrderRevenueResponse(order) : mapToResponse(order);
+                    writer.write(objectMapper.writeValueAsString(row));
+                } else {
+                    writeCsvRow(writer, order, showRevenue);
+                }
+                writer.write('\n');
+
+                if (++exported % EXPORT_FETCH_SIZE == 0) {
+                    em.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} orders as {}", exported, ndjson ? "NDJSON" : "CSV");
+    }
 
-        if (status != null && !status.isBlank()) {
-            countPredicates.add(cb.equal(countRoot.get("status").get("name"), status));
+    private void writeCsvRow(Writer writer, Order order, boolean showRevenue) throws IOException {
+        List<Object> values = new ArrayList<>(List.of(
+                order.getId(),
+                order.getOrderNumber(),
+                order.getCustomerId(),
+                order.getStatus().getName(),
+                Objects.toString(order.getPaymentMethod(), ""),
+                Objects.toString(order.getPaymentStatus(), ""),
+                Objects.toString(order.getSubtotal(), ""),
+                Objects.toString(order.getFee(), ""),
+                Objects.toString(order.getDiscountAmount(), ""),
+                Objects.toString(order.getTotalAmount(), ""),
+                Objects.toString(order.getOrderDate(), ""),
+                Objects.toString(order.getDeliveredDate(), ""),
+                Objects.toString(order.getShippingName(), ""),
+                Objects.toString(order.getShippingPhone(), ""),
+                Objects.toString(order.getShippingAddress(), "")
+        ));
+        if (showRevenue) {
+            values.add(Objects.toString(order.getRevenue(), ""));
         }
-        if (startDateTime != null) {
-            countPredicates.add(cb.greaterThanOrEqualTo(countRoot.get("orderDate"), startDateTime));
+        writer.write(values.stream().map(v -> csvEscape(v.toString())).collect(Collectors.joining(",")));
+    }
+
+    private String csvEscape(String value) {
+        if (value.isEmpty()) {
+            return value;
         }
-        if (endDateTime != null) {
-            countPredicates.add(cb.lessThan(countRoot.get("orderDate"), endDateTime));
+        // Leading formula characters are neutralised so the file is safe to open in a spreadsheet
+        if ("=+-@".indexOf(value.charAt(0)) >= 0 && !value.matches("-?\\d+(\\.\\d+)?")) {
+            value = "'" + value;
         }
-        if (keyword != null && !keyword.isBlank() || customerId != null) {
-            List<Predicate> orPredicatesCount = new ArrayList<>();
-            if (keyword != null && !keyword.isBlank()) {
-                orPredicatesCount.add(cb.like(countRoot.get("orderNumber"), "%" + keyword + "%"));
-            }
-            if (customerId != null) {
-                orPredicatesCount.add(cb.equal(countRoot.get("customerId"), customerId));
-            }
-            countPredicates.add(cb.or(orPredicatesCount.toArray(new Predicate[0])));
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
         }
-        countQuery.where(cb.and(countPredicates.toArray(new Predicate[0])));
-        Long total = em.createQuery(countQuery).getSingleResult();
+        return value;
+    }
 
-        return new PageImpl<>(
-                results.stream().map(order -> {
-                    List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-                    return mapToDetailResponse(order, orderItems, false);
-                }).toList(),
-                pageable,
-                total
-        );
+    private long countOrders(OrderSearchFilter filter, boolean approximate) {
+        if (approximate && filter.isEmpty()) {
+            // Planner statistics instead of a full scan; filtered counts stay exact since they use indexes
+            List<?> estimate = em.createNativeQuery(
+                    "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE relname = 'orders'").getResultList();
+            if (!estimate.isEmpty() && estimate.get(0) != null && ((Number) estimate.get(0)).longValue() > 0) {
+                return ((Number) estimate.get(0)).longValue();
+            }
+        }
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Order> countRoot = countQuery.from(Order.class);
+        countQuery.select(cb.count(countRoot));
+        countQuery.where(cb.and(buildSearchPredicates(cb, countQuery, countRoot, filter).toArray(new Predicate[0])));
+        return em.createQuery(countQuery).getSingleResult();
     }
 
     @Transactional
@@ -705,11 +780,12 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + orderId));
 
-        OrderStatus newStatus = orderStatusRepository.findById(statusId)
+        OrderStatus newStatus = orderStatusRegistry.findById(statusId)
                 .orElseThrow(() -> new RuntimeException("Status not found with ID: " + statusId));
 
         OrderStatus oldStatus = order.getStatus();
         String oldStatusName = oldStatus.getName();
+        PaymentStatus oldPaymentStatus = order.getPaymentStatus();
         String newStatusName = newStatus.getName();
 
 
@@ -718,8 +794,7 @@ public class OrderService {
                 !Objects.equals(order.getPaymentMethod(), "COD"))
             throw new IllegalStateException("Đơn hàng phải được thanh toán trước khi xác nhận!");
 
-        List<String> validNext = ALLOWED_TRANSITIONS.getOrDefault(oldStatusName, List.of());
-        if (!validNext.contains(newStatusName)) {
+        if (!OrderStatusCode.isAllowed(oldStatusName, newStatusName)) {
             throw new IllegalStateException(String.format(
                     "Trạng thái không hợp lệ: %s → %s", oldStatusName, newStatusName
             ));
@@ -774,15 +849,12 @@ public class OrderService {
             }
         }
         order = orderRepository.save(order);
-        if (cacheManager != null) {
-            Cache cache = cacheManager.getCache("customerOrders");
-            if (cache != null) {
-                String key = order.getCustomerId() + ":ALL:";
-                cache.evict(key);
-            }
-        }
+        orderAnalyticsService.recordOrderChange(order, oldStatusName, oldPaymentStatus);
+        customerOrderCacheVersion.bump(order.getCustomerId());
+        paymentResultRegistry.evictAfterCommit(order.getOrderNumber());
         webhookUtils.postToWebhook(order.getId(), "update");
-        eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName()));
+        eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName(),
+                order.getCustomerId(), order.getWarehouseData()));
         log.info("Order status updated successfully - OrderId: {}, NewStatus: {}", orderId, newStatus.getName());
         return mapToResponse(order);
     }
@@ -794,11 +866,13 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + orderId));
 
+        String oldStatusName = order.getStatus().getName();
+        PaymentStatus oldPaymentStatus = order.getPaymentStatus();
         order.setPaymentStatus(paymentStatus);
         order = orderRepository.save(order);
 
         if (paymentStatus == PaymentStatus.PAID) {
-            OrderStatus pendingStatus = orderStatusRepository.findByName("PENDING")
+            OrderStatus pendingStatus = orderStatusRegistry.find(OrderStatusCode.PENDING)
                     .orElse(null);
             if (pendingStatus != null && !order.getStatus().getName().equals("PENDING")) {
                 order.setStatus(pendingStatus);
@@ -806,15 +880,12 @@ public class OrderService {
                 log.info("Order status updated to PENDING after payment");
             }
         }
-        if (cacheManager != null) {
-            Cache cache = cacheManager.getCache("customerOrders");
-            if (cache != null) {
-                String key = order.getCustomerId() + ":ALL:";
-                cache.evict(key);
-            }
-        }
+        orderAnalyticsService.recordOrderChange(order, oldStatusName, oldPaymentStatus);
+        customerOrderCacheVersion.bump(order.getCustomerId());
+        paymentResultRegistry.evictAfterCommit(order.getOrderNumber());
         webhookUtils.postToWebhook(order.getId(), "update");
-        eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName()));
+        eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName(),
+                order.getCustomerId(), order.getWarehouseData()));
         return mapToResponse(order);
     }
 
@@ -833,9 +904,10 @@ public class OrderService {
             throw new IllegalStateException("Order cannot be cancelled in current status: " + currentStatus);
         }
 
-        OrderStatus cancelledStatus = orderStatusRepository.findByName("CANCELLED")
+        OrderStatus cancelledStatus = orderStatusRegistry.find(OrderStatusCode.CANCELLED)
                 .orElseThrow(() -> new RuntimeException("Cancelled status not found"));
 
+        PaymentStatus oldPaymentStatus = order.getPaymentStatus();
         order.setStatus(cancelledStatus);
         order.setPaymentStatus(PaymentStatus.CANCELLED);
         order.setCancelledDate(OffsetDateTime.now());
@@ -867,15 +939,12 @@ public class OrderService {
         }
 
         order = orderRepository.save(order);
-        if (cacheManager != null) {
-            Cache cache = cacheManager.getCache("customerOrders");
-            if (cache != null) {
-                String key = order.getCustomerId() + ":ALL:";
-                cache.evict(key);
-            }
-        }
+        orderAnalyticsService.recordOrderChange(order, currentStatus, oldPaymentStatus);
+        customerOrderCacheVersion.bump(order.getCustomerId());
+        paymentResultRegistry.evictAfterCommit(order.getOrderNumber());
         webhookUtils.postToWebhook(order.getId(), "update");
-        eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName()));
+        eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName(),
+                order.getCustomerId(), order.getWarehouseData()));
         log.info("Order cancelled successfully - OrderId: {}", orderId);
 
         return mapToResponse(order);
@@ -895,25 +964,16 @@ public class OrderService {
         order.setShippingName(request.getName());
         order.setShippingPhone(request.getPhone());
 
-        if (cacheManager != null) {
-            Cache cache = cacheManager.getCache("customerOrders");
-            if (cache != null) {
-                String key = order.getCustomerId() + ":ALL:";
-                cache.evict(key);
-            }
-        }
+        customerOrderCacheVersion.bump(order.getCustomerId());
         return mapToResponse(order);
     }
 
     public Map<String, Object> getCustomerOrderStats(Long customerId) {
         log.info("Getting order statistics for customer: {}", customerId);
 
-        Long totalOrders = orderRepository.countByCustomerId(customerId);
-        BigDecimal totalSpent = orderRepository.sumTotalAmountByCustomerId(customerId);
-
-        if (totalSpent == null) {
-            totalSpent = BigDecimal.ZERO;
-        }
+        CustomerOrderStat stat = customerOrderStatRepository.findById(customerId).orElse(null);
+        long totalOrders = stat != null ? stat.getOrderCount() : 0L;
+        BigDecimal totalSpent = stat != null ? stat.getPaidTotal() : BigDecimal.ZERO;
 
         BigDecimal averageOrderValue = totalOrders > 0
                 ? totalSpent.divide(BigDecimal.valueOf(totalOrders), 2, BigDecimal.ROUND_HALF_UP)
@@ -924,34 +984,25 @@ public class OrderService {
         stats.put("totalOrders", totalOrders);
         stats.put("totalSpent", totalSpent);
         stats.put("averageOrderValue", averageOrderValue);
+        stats.put("pendingOrders", stat != null ? stat.getPendingCount() : 0L);
+        stats.put("lastOrderDate", stat != null ? stat.getLastOrderDate() : null);
 
         return stats;
     }
 
     // ==================== HELPER METHODS ====================
-    private BigDecimal calculateSubtotal(List<OrderItemRequest> items) {
+    private BigDecimal calculateSubtotal(List<OrderItemRequest> items, Map<Long, VariantDTO> variants) {
         BigDecimal subtotal = BigDecimal.ZERO;
 
         for (OrderItemRequest item : items) {
-            try {
-                if (item.getVariantId() == null) {
-                    throw new RuntimeException("Variant ID is required for all items");
-                }
-
-                VariantDTO variant = productServiceClient.getVariant(item.getVariantId()).getBody();
-                if (variant == null || variant.getSellingPrice() == null) {
-                    log.error("Selling price is not available for variant ID: {}", item.getVariantId());
-                    throw new RuntimeException("Selling price is not available for variant ID: " + item.getVariantId());
-                }
-
-                BigDecimal itemTotal = variant.getSellingPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                subtotal = subtotal.add(itemTotal);
-
-            } catch (FeignException e) {
-                log.error("Failed to get variant price for variant {}: Status={}",
-                        item.getVariantId(), e.status());
-                throw new RuntimeException("Failed to calculate order subtotal. Variant not found with ID: " + item.getVariantId());
+            VariantDTO variant = variants.get(item.getVariantId());
+            if (variant == null || variant.getSellingPrice() == null) {
+                log.error("Selling price is not available for variant ID: {}", item.getVariantId());
+                throw new RuntimeException("Selling price is not available for variant ID: " + item.getVariantId());
             }
+
+            BigDecimal itemTotal = variant.getSellingPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            subtotal = subtotal.add(itemTotal);
         }
 
         return subtotal;
@@ -962,30 +1013,13 @@ public class OrderService {
         return String.format("DATN-%s-%d", date, orderId);
     }
 
-    private Map<String, Object> createVariantSnapshot(VariantDTO variant) {
-        Map<String, Object> snapshot = new HashMap<>();
-        if (variant != null) {
-            snapshot.put("variantId", variant.getId());
-            snapshot.put("productId", variant.getProductId());
-            snapshot.put("name", variant.getName());
-            snapshot.put("productName", variant.getProductName());
-            snapshot.put("code", variant.getProductCode());
-            snapshot.put("slug", variant.getProductSlug());
-            snapshot.put("sku", variant.getSku());
-            snapshot.put("sellingPrice", variant.getSellingPrice());
-            snapshot.put("importPrice", variant.getImportPrice());
-            snapshot.put("discountPercent", variant.getDiscountPercent());
-            snapshot.put("attributes", variant.getAttributes());
-            snapshot.put("imageUrls", variant.getImageUrls() != null ?
-                    variant.getImageUrls() : Collections.emptyList());
-            snapshot.put("isActive", variant.isActive());
-            snapshot.put("status", variant.getStatus());
-        } else {
-            snapshot.put("name", "Unknown Variant");
-        }
-
-        snapshot.put("snapshotDate", LocalDateTime.now());
-        return snapshot;
+    private void createFulfillments(Long orderId, List<Long> warehouseIds) {
+        orderFulfillmentRepository.saveAll(warehouseIds.stream()
+                .map(warehouseId -> OrderFulfillment.builder()
+                        .orderId(orderId)
+                        .warehouseId(warehouseId)
+                        .build())
+                .toList());
     }
 
     private void handleStatusChange(Order order, Long staffId, OrderStatus oldStatus, OrderStatus newStatus,Long currentWarehouseId) {
@@ -999,64 +1033,33 @@ public class OrderService {
 
             case "PROCESSING":
                 log.info("Order processing started - OrderId: {}", order.getId());
-                System.out.println(currentWarehouseId);
                 List<Long> warehouses = order.getWarehouseData();
                 if (warehouses == null || warehouses.isEmpty()) {
                     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Đơn hàng không có dữ liệu kho");
                 }
-
-                String note = Optional.ofNullable(order.getNotes()).orElse("");
-                List<Long> processedWarehouses = new ArrayList<>();
-
-                String lower = note.toLowerCase();
-                int idx = lower.lastIndexOf("kho:");
-                if (idx != -1) {
-                    String part = note.substring(idx + 4).trim();
-                    processedWarehouses = Arrays.stream(part.split(","))
-                            .map(String::trim)
-                            .filter(s -> s.matches("\\d+"))
-                            .map(Long::parseLong)
-                            .collect(Collectors.toCollection(ArrayList::new));
+                if (orderFulfillmentRepository.findByOrderId(order.getId()).isEmpty()) {
+                    createFulfillments(order.getId(), warehouses);
                 }
 
+                OffsetDateTime processedAt = OffsetDateTime.now();
                 // Admin/manager override → mark all warehouses as processed
                 if (currentWarehouseId != null && currentWarehouseId == -1L) {
-                    processedWarehouses = new ArrayList<>(warehouses);
-
-                    note = note.replaceAll("(?i)\\s*-?\\s*kho:.*$", "").trim();
-                    note = (note + " - Kho: " +
-                            processedWarehouses.stream().map(String::valueOf).collect(Collectors.joining(",")))
-                            .trim();
-
-                    order.setNotes(note);
+                    orderFulfillmentRepository.markAllProcessed(order.getId(), staffId, processedAt);
                 } else {
-                    // Thêm kho mới nếu chưa có
                     if (currentWarehouseId == null) {
                         throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                                 "Vui lòng nhập mã kho khi đơn có nhiều kho");
                     }
-
-                    if (!processedWarehouses.contains(currentWarehouseId)) {
-                        processedWarehouses.add(currentWarehouseId);
-
-                        note = note.replaceAll("(?i)\\s*-?\\s*kho:.*$", "").trim();
-                        note = (note + " - Kho: " +
-                                processedWarehouses.stream()
-                                        .map(String::valueOf)
-                                        .collect(Collectors.joining(",")))
-                                .trim();
-
-                        order.setNotes(note);
+                    if (!warehouses.contains(currentWarehouseId)) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Kho " + currentWarehouseId + " không thuộc đơn hàng này");
                     }
+                    orderFulfillmentRepository.markProcessed(order.getId(), currentWarehouseId, staffId, processedAt);
                 }
 
                 // Kiểm tra kho chưa xử lý
-                List<Long> finalProcessedWarehouses = processedWarehouses;
-                boolean stillLeft = warehouses.stream()
-                        .anyMatch(id -> !finalProcessedWarehouses.contains(id));
-
-                if (stillLeft) {
-                    order.setStatus(orderStatusRepository.findByName("WAITING")
+                if (orderFulfillmentRepository.existsByOrderIdAndState(order.getId(), FulfillmentState.PENDING)) {
+                    order.setStatus(orderStatusRegistry.find(OrderStatusCode.WAITING)
                             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                                     "Không tìm thấy status WAITING!")));
                     orderRepository.save(order);
@@ -1081,21 +1084,14 @@ public class OrderService {
 
                             if (qty == null || qty <= 0) continue;
 
-                            Map<String, Object> snapshot = item.getProductSnapshot();
-                            ObjectMapper mapper = new ObjectMapper();
-                            Map<String, Object> imageUrls = mapper.convertValue(
-                                    snapshot.get("imageUrls"),
-                                    new TypeReference<>() {}
-                            );
-                            String mainImage = imageUrls.get("main").toString();
-
+                            ProductSnapshot snapshot = item.getProductSnapshot();
                             DeliveryOrderItemRequest deliveryItem = new DeliveryOrderItemRequest(
                                     item.getId(),
                                     item.getVariantId(),
-                                    snapshot.get("name").toString(),
-                                    snapshot.get("sku").toString(),
+                                    snapshot != null ? snapshot.getName() : null,
+                                    snapshot != null ? snapshot.getSku() : null,
                                     item.getUnitPrice(),
-                                    mainImage,
+                                    snapshot != null ? snapshot.mainImage() : null,
                                     qty
                             );
 
@@ -1165,30 +1161,48 @@ public class OrderService {
 
     @Transactional
     public void updateOrderStatusFromInternal(UpdateOrderStatusFromInvRequest request) {
-        List<Order> pendingOrdersToSave = new ArrayList<>();
-        for (String orderNumber : request.getOrderNumbers()) {
-            Order order = orderRepository.findByOrderNumber(orderNumber)
-                    .orElseThrow(() -> new OrderNotFoundException("Order not found with orderNumber: " + orderNumber));
-            OrderStatus newStatus = orderStatusRepository.findById(request.getStatusId())
-                    .orElseThrow(() -> new RuntimeException("Status not found with ID: " + request.getStatusId()));
-            switch (newStatus.getName()) {
+        OrderStatus newStatus = orderStatusRegistry.findById(request.getStatusId())
+                .orElseThrow(() -> new RuntimeException("Status not found with ID: " + request.getStatusId()));
+        String newStatusName = newStatus.getName();
+        if (OrderStatusCode.fromName(newStatusName).filter(INTERNAL_STATUS_CHANGES::contains).isEmpty()) {
+            throw new RuntimeException("Status change with name: " + newStatusName + " is not allowed!");
+        }
+
+        // One IN query for the whole batch instead of one lookup per order number
+        List<String> orderNumbers = request.getOrderNumbers().stream().distinct().toList();
+        List<Order> orders = orderRepository.findByOrderNumberIn(orderNumbers);
+        if (orders.size() < orderNumbers.size()) {
+            Set<String> found = orders.stream().map(Order::getOrderNumber).collect(Collectors.toSet());
+            String missing = orderNumbers.stream().filter(n -> !found.contains(n)).findFirst().orElse(null);
+            throw new OrderNotFoundException("Order not found with orderNumber: " + missing);
+        }
+
+        if ("DELIVERED".equals(newStatusName) && !orders.isEmpty()) {
+            // Sold counts of every delivered line, summed per variant, in a single product-service call
+            Map<Long, Integer> soldByVariant = new HashMap<>();
+            orderItemRepository.findListingRows(orders.stream().map(Order::getId).toList()).forEach(row ->
+                    soldByVariant.merge(row.getVariantId(), row.getQuantity(), Integer::sum));
+            if (!soldByVariant.isEmpty()) {
+                try {
+                    productServiceClient.updateVariantSoldBatch(soldByVariant);
+                } catch (FeignException e) {
+                    log.error("Failed to update variant sold count: {}", e.getMessage());
+                    throw new RuntimeException("Failed to update variant sold count.");
+                }
+            }
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        for (Order order : orders) {
+            String oldStatusName = order.getStatus().getName();
+            PaymentStatus oldPaymentStatus = order.getPaymentStatus();
+            switch (newStatusName) {
                 case "SHIPPED" -> {
-                    order.setShippedDate(OffsetDateTime.now());
+                    order.setShippedDate(now);
                     log.info("Order shipped - OrderId: {}", order.getId());
                 }
                 case "DELIVERED" -> {
-                    List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-                    if (!orderItems.isEmpty()) {
-                        try {
-                            for (OrderItem item : orderItems) {
-                                productServiceClient.updateVariantSold(item.getVariantId(), item.getQuantity());
-                            }
-                        } catch (FeignException e) {
-                            log.error("Failed to update variant sold count: {}", e.getMessage());
-                            throw new RuntimeException("Failed to update variant sold count.");
-                        }
-                    }
-                    order.setDeliveredDate(OffsetDateTime.now());
+                    order.setDeliveredDate(now);
                     log.info("Order delivered - OrderId: {}", order.getId());
                     if ("COD".equalsIgnoreCase(order.getPaymentMethod()) &&
                             order.getPaymentStatus() == PaymentStatus.PENDING) {
@@ -1198,19 +1212,20 @@ public class OrderService {
                 }
                 case "PROCESSING" -> log.info("Order processing - OrderId: {}", order.getId());
                 case "CANCELLED" -> {
-                    order.setCancelledDate(OffsetDateTime.now());
+                    order.setCancelledDate(now);
                     log.info("Order cancelled - OrderId: {}", order.getId());
                 }
-                default ->
-                        throw new RuntimeException("Status change with name: " + newStatus.getName() + " is not allowed!");
             }
             order.setStatus(newStatus);
             order.setNotes(request.getNotes());
-            pendingOrdersToSave.add(order);
+            orderAnalyticsService.recordOrderChange(order, oldStatusName, oldPaymentStatus);
+            paymentResultRegistry.evictAfterCommit(order.getOrderNumber());
             webhookUtils.postToWebhook(order.getId(), "update");
-            eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName()));
+            eventPublisher.publish(new OrderEvent("ORDER_STATUS_UPDATED", order.getId(), order.getStatus().getName(),
+                    order.getCustomerId(), order.getWarehouseData()));
         }
-        orderRepository.saveAll(pendingOrdersToSave);
+        orderRepository.saveAll(orders);
+        customerOrderCacheVersion.bumpAll(orders.stream().map(Order::getCustomerId).toList());
     }
 
     private OrderResponse mapToResponse(Order order) {
@@ -1233,10 +1248,12 @@ public class OrderService {
     }
 
     private OrderDetailResponse mapToDetailResponse(Order order, List<OrderItem> items, boolean showRevenue) {
+        return toDetailResponse(order, items.stream().map(this::mapToOrderItemResponse).toList(), showRevenue);
+    }
+
+    private OrderDetailResponse toDetailResponse(Order order, List<OrderItemResponse> items, boolean showRevenue) {
         OrderDetailResponse response = OrderDetailResponse.builder()
-                .items(items.stream()
-                        .map(this::mapToOrderItemResponse)
-                        .collect(Collectors.toList()))
+                .items(items)
                 .shippingName(order.getShippingName())
                 .shippingAddress(order.getShippingAddress())
                 .shippingPhone(order.getShippingPhone())
@@ -1269,42 +1286,56 @@ public class OrderService {
         return response;
     }
 
-    private OrderItemResponse mapToOrderItemResponse(OrderItem item) {
-        String variantName = "Unknown Variant";
-        String variantSku = "Unknown Variant";
-
-        long productId = -1L;
-        String productSlug = "Unknown Product Slug";
-        String imageUrl = null;
-        if (item.getProductSnapshot() != null) {
-            Object nameObj = item.getProductSnapshot().get("name");
-            if (nameObj != null) {
-                variantName = nameObj.toString();
-            }
-            Object skuObj = item.getProductSnapshot().get("sku");
-            if (skuObj != null) {
-                variantSku = skuObj.toString();
-            }
-            Object idObj = item.getProductSnapshot().get("productId");
-            if (idObj != null) {
-                productId = Long.parseLong(idObj.toString());
-            }
-            Object slugObj = item.getProductSnapshot().get("slug");
-            if (slugObj != null) {
-                productSlug = slugObj.toString();
-            }
-
-            // Get first image from imageUrls
-            Object imageUrlsObj = item.getProductSnapshot().get("imageUrls");
+    /**
+     * Item lines for order lists, built from {@link OrderItemRepository#findListingRows} so the
+     * product snapshot documents are not loaded; the fallbacks match {@link #mapToOrderItemResponse}.
+     */
+    private Map<Long, List<OrderItemResponse>> findListingItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        return orderItemRepository.findListingRows(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderItemRepository.ListingRow::getOrderId,
+                        Collectors.mapping(this::mapToOrderItemResponse, Collectors.toList())));
+    }
 
-            if (imageUrlsObj instanceof Map<?, ?> imageUrlsMap) {
-                Object mainImageObj = imageUrlsMap.get("main");
-                if (mainImageObj != null) {
-                    imageUrl = mainImageObj.toString();
-                }
-            }
+    private OrderItemResponse mapToOrderItemResponse(OrderItemRepository.ListingRow row) {
+        return OrderItemResponse.builder()
+                .id(row.getId())
+                .variantId(row.getVariantId())
+                .variantName(Objects.requireNonNullElse(row.getVariantName(), ProductSnapshot.UNKNOWN_VARIANT))
+                .variantSku(Objects.requireNonNullElse(row.getVariantSku(), ProductSnapshot.UNKNOWN_VARIANT))
+                .productId(Objects.requireNonNullElse(row.getProductId(), -1L))
+                .productSlug(Objects.requireNonNullElse(row.getProductSlug(), "Unknown Product Slug"))
+                .quantity(row.getQuantity())
+                .unitPrice(row.getUnitPrice())
+                .totalPrice(row.getTotalPrice())
+                .imageUrl(row.getImageUrl())
+                .returnRequested(Boolean.TRUE.equals(row.getReturnRequested()))
+                .itemWarehouseData(parseItemWarehouseData(row.getItemWarehouseData()))
+                .build();
+    }
 
+    private Map<Long, Integer> parseItemWarehouseData(String json) {
+        if (json == null) {
+            return null;
         }
+        try {
+            return objectMapper.readValue(json, ITEM_WAREHOUSE_DATA_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Invalid item warehouse data {}: {}", json, e.getMessage());
+            return null;
+        }
+    }
+
+    private OrderItemResponse mapToOrderItemResponse(OrderItem item) {
+        ProductSnapshot snapshot = Objects.requireNonNullElseGet(item.getProductSnapshot(), ProductSnapshot::new);
+        String variantName = Objects.requireNonNullElse(snapshot.getName(), ProductSnapshot.UNKNOWN_VARIANT);
+        String variantSku = Objects.requireNonNullElse(snapshot.getSku(), ProductSnapshot.UNKNOWN_VARIANT);
+        long productId = Objects.requireNonNullElse(snapshot.getProductId(), -1L);
+        String productSlug = Objects.requireNonNullElse(snapshot.getSlug(), "Unknown Product Slug");
+        String imageUrl = snapshot.mainImage();
 
         return OrderItemResponse.builder()
                 .id(item.getId())
@@ -1322,22 +1353,24 @@ public class OrderService {
                 .build();
     }
 
-    private static final Map<String, List<String>> ALLOWED_TRANSITIONS = Map.of(
-            "PENDING", List.of("CONFIRMED", "CANCELLED"),
-            "CONFIRMED", List.of("PROCESSING", "CANCELLED"),
-            "PROCESSING", List.of("SHIPPED", "CANCELLED"),
-            "SHIPPED", List.of("DELIVERED"),
-            "DELIVERED", List.of(),
-            "CANCELLED", List.of(),
-            "RETURNED", List.of(),
-            "WAITING",List.of("PROCESSING","CANCELLED")
-    );
-
     public OrderDetailResponse getOrder(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
         List<OrderItem> orderItem = orderItemRepository.findByOrderId(orderId);
-        return mapToDetailResponse(order, orderItem, false);
+        OrderDetailResponse response = mapToDetailResponse(order, orderItem, false);
+        response.setFulfillments(findFulfillments(orderId));
+        return response;
+    }
+
+    private List<OrderFulfillmentResponse> findFulfillments(Long orderId) {
+        return orderFulfillmentRepository.findByOrderId(orderId).stream()
+                .sorted(Comparator.comparing(OrderFulfillment::getWarehouseId))
+                .map(fulfillment -> OrderFulfillmentResponse.builder()
+                        .warehouseId(fulfillment.getWarehouseId())
+                        .state(fulfillment.getState())
+                        .processedAt(fulfillment.getProcessedAt())
+                        .build())
+                .toList();
     }
 
     private OrderResponse mapToOrderRevenueResponse(Order order) {
@@ -1373,29 +1406,15 @@ public class OrderService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,"Bạn không có quyền xác nhận đơn hàng nay!");
         order.setUserConfirmedAt(OffsetDateTime.now());
         orderRepository.save(order);
-        if (cacheManager != null) {
-            Cache cache = cacheManager.getCache("customerOrders");
-            if (cache != null) {
-                String key = order.getCustomerId() + ":ALL:";
-                cache.evict(key);
-            }
-        }
+        customerOrderCacheVersion.bump(order.getCustomerId());
 
         return mapToResponse(order);
     }
 
-    public void autoConfirmOrders() {
-        OffsetDateTime cutoff = OffsetDateTime.now().minusDays(7);
-        List<Order> orders = orderRepository.findByUserConfirmedAtIsNullAndDeliveredDateBefore(cutoff);
-
-        orders.forEach(order -> {
-            order.setUserConfirmedAt(OffsetDateTime.now());
-        });
-        orderRepository.saveAll(orders);
-    }
-
     public boolean checkPendingOrder(Long id) {
-        return orderRepository.existsByCustomerIdAndStatusNot(id,"DELIVERED");
+        return customerOrderStatRepository.findById(id)
+                .map(stat -> stat.getPendingCount() > 0)
+                .orElse(false);
     }
 
 
@@ -0,0 +1,76 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.entity.OrderStatus;
+import com.datn.order_service.enums.OrderStatusCode;
+import com.datn.order_service.repository.OrderStatusRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In-memory copy of the order_statuses table, so order flows resolve statuses without a query.
+ * The table is tiny and only changes through {@link #reload()}; each reload swaps in a new
+ * immutable snapshot. Cached rows are detached, which is enough to set them on an order
+ * since only the foreign key is written.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusRegistry {
+
+    private final OrderStatusRepository orderStatusRepository;
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(Map<Long, OrderStatus> byId,
+                            Map<String, OrderStatus> byName,
+                            Map<OrderStatusCode, OrderStatus> byCode,
+                            List<OrderStatus> all) {
+    }
+
+    public Optional<OrderStatus> find(OrderStatusCode code) {
+        return Optional.ofNullable(current().byCode().get(code));
+    }
+
+    public Optional<OrderStatus> findByName(String name) {
+        return Optional.ofNullable(current().byName().get(name));
+    }
+
+    public Optional<OrderStatus> findById(Long id) {
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    public List<OrderStatus> findAll() {
+        return current().all();
+    }
+
+    public synchronized void reload() {
+        List<OrderStatus> statuses = orderStatusRepository.findAll();
+        Map<Long, OrderStatus> byId = new HashMap<>();
+        Map<String, OrderStatus> byName = new HashMap<>();
+        Map<OrderStatusCode, OrderStatus> byCode = new EnumMap<>(OrderStatusCode.class);
+        for (OrderStatus status : statuses) {
+            byId.put(status.getId(), status);
+            byName.put(status.getName(), status);
+            OrderStatusCode.fromName(status.getName()).ifPresent(code -> byCode.put(code, status));
+        }
+        snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byName),
+                Collections.unmodifiableMap(byCode), List.copyOf(statuses));
+        log.info("Loaded {} order statuses", statuses.size());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,145 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.client.CartServiceClient;
+import com.datn.order_service.client.PromotionServiceClient;
+import com.datn.order_service.dto.response.ApiResponse;
+import com.datn.order_service.entity.OutboxEvent;
+import com.datn.order_service.utils.WebhookUtils;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox events to the cart and promotion services outside of the
+ * checkout request, retrying with backoff until {@link OutboxService} gives up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxService outboxService;
+    private final CartServiceClient cartServiceClient;
+    private final PromotionServiceClient promotionServiceClient;
+    private final WebhookUtils webhookUtils;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${order.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${order.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${feign.client.config.default.connectTimeout:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${feign.client.config.default.readTimeout:5000}")
+    private long readTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (!running.compareAndSet(false, true)) return;
+
+        try {
+            List<OutboxEvent> events;
+            do {
+                long claimedAt = System.nanoTime();
+                events = outboxService.claimBatch(batchSize);
+                if (events.isEmpty()) break;
+
+                // Last moment a call can start and still finish before the lease lets another instance re-claim
+                long deadline = claimedAt + TimeUnit.SECONDS.toNanos(leaseSeconds)
+                        - TimeUnit.MILLISECONDS.toNanos(connectTimeoutMs + readTimeoutMs);
+                List<Long> sentIds = new ArrayList<>();
+                Map<Long, String> failures = new HashMap<>();
+                boolean leaseExpiring = false;
+                for (OutboxEvent event : events) {
+                    if (System.nanoTime() - deadline > 0) {
+                        // The rest stay leased and are picked up again once the lease runs out
+                        log.warn("Outbox lease running out, leaving {} events for the next claim",
+                                events.size() - sentIds.size() - failures.size());
+                        leaseExpiring = true;
+                        break;
+                    }
+                    try {
+                        deliver(event);
+                        sentIds.add(event.getId());
+                    } catch (FeignException e) {
+                        failures.put(event.getId(), "Status=" + e.status() + ", " + e.getMessage());
+                    } catch (Exception e) {
+                        failures.put(event.getId(), e.getMessage() != null ? e.getMessage() : e.toString());
+                    }
+                }
+                outboxService.completeBatch(sentIds, failures);
+                if (leaseExpiring) break;
+            } while (events.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Outbox relay failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void deliver(OutboxEvent event) {
+        Map<String, Object> payload = event.getPayload();
+        switch (event.getEventType()) {
+            case CART_CHECKOUT -> deliverCartCheckout(payload);
+            case PROMOTION_USAGE -> deliverPromotionUsage(payload);
+            // Webhooks are posted directly now; only rows queued before that still arrive here
+            case WEBHOOK -> webhookUtils.postToWebhook(toLong(payload.get("orderId")), payload.get("action").toString());
+        }
+    }
+
+    private void deliverCartCheckout(Map<String, Object> payload) {
+        Long customerId = toLong(payload.get("customerId"));
+        if (Boolean.TRUE.equals(payload.get("clearCart"))) {
+            ApiResponse<Void> cartResponse = cartServiceClient.clearCart(customerId);
+            if (!cartResponse.isSuccess()) {
+                throw new IllegalStateException("Failed to clear cart: " + cartResponse.getMessage());
+            }
+            log.info("Cart cleared completely for customer: {}", customerId);
+            return;
+        }
+
+        List<Long> variantIds = toLongList(payload.get("variantIds"));
+        if (variantIds.isEmpty()) {
+            return;
+        }
+        ApiResponse<Integer> removeResponse = cartServiceClient.removeCartItems(customerId, variantIds);
+        if (!removeResponse.isSuccess()) {
+            throw new IllegalStateException("Failed to remove variants " + variantIds + ": " + removeResponse.getMessage());
+        }
+        log.info("Removed {} selected items from cart for customer: {}", removeResponse.getData(), customerId);
+    }
+
+    private void deliverPromotionUsage(Map<String, Object> payload) {
+        Long promotionId = toLong(payload.get("promotionId"));
+        ApiResponse<Void> usageResponse = promotionServiceClient.recordPromotionUsage(
+                promotionId,
+                toLong(payload.get("customerId")),
+                toLong(payload.get("orderId"))
+        ).getBody();
+
+        if (usageResponse == null || !usageResponse.isSuccess()) {
+            throw new IllegalStateException("Ghi nhận sử dụng mã khuyến mãi thất bại: "
+                    + (usageResponse != null ? usageResponse.getMessage() : "empty response"));
+        }
+        log.info("Ghi nhận sử dụng mã khuyến mãi thành công - ID: {}", promotionId);
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : Long.valueOf(value.toString());
+    }
+
+    private static List<Long> toLongList(Object value) {
+        if (!(value instanceof Collection<?> values)) return List.of();
+        return values.stream().map(OutboxRelay::toLong).filter(Objects::nonNull).toList();
+    }
+}
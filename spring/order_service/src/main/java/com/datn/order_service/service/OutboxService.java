@@ -0,0 +1,120 @@
+package com.datn.order_service.service;
+
+import com.datn.order_service.entity.OutboxEvent;
+import com.datn.order_service.enums.OutboxEventType;
+import com.datn.order_service.enums.OutboxStatus;
+import com.datn.order_service.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Value("${order.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${order.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${order.outbox.base-backoff-seconds:5}")
+    private long baseBackoffSeconds;
+
+    @Value("${order.outbox.max-backoff-seconds:600}")
+    private long maxBackoffSeconds;
+
+    // ==================== ENQUEUE (same transaction as the order) ====================
+
+    @Transactional
+    public void enqueueCartCheckout(Long orderId, Long customerId, Boolean clearCart, Collection<Long> variantIds) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("customerId", customerId);
+        payload.put("clearCart", Boolean.TRUE.equals(clearCart));
+        payload.put("variantIds", new ArrayList<>(variantIds));
+        enqueue(OutboxEventType.CART_CHECKOUT, orderId, payload);
+    }
+
+    @Transactional
+    public void enqueuePromotionUsage(Long orderId, Long promotionId, Long customerId) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("promotionId", promotionId);
+        payload.put("customerId", customerId);
+        payload.put("orderId", orderId);
+        enqueue(OutboxEventType.PROMOTION_USAGE, orderId, payload);
+    }
+
+    private void enqueue(OutboxEventType type, Long aggregateId, Map<String, Object> payload) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(type)
+                .aggregateId(aggregateId)
+                .payload(payload)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(OffsetDateTime.now())
+                .build());
+    }
+
+    // ==================== RELAY ====================
+
+    /**
+     * Locks the next due events and pushes their next attempt forward by a lease,
+     * so the events are retried if this instance dies before finishing them.
+     */
+    @Transactional
+    public List<OutboxEvent> claimBatch(int batchSize) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<OutboxEvent> events = outboxEventRepository.lockDueEvents(now, batchSize);
+        OffsetDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+        for (OutboxEvent event : events) {
+            event.setNextAttemptAt(leaseUntil);
+        }
+        return outboxEventRepository.saveAll(events);
+    }
+
+    @Transactional
+    public void completeBatch(Collection<Long> sentIds, Map<Long, String> failures) {
+        List<Long> ids = new ArrayList<>(sentIds);
+        ids.addAll(failures.keySet());
+        if (ids.isEmpty()) return;
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<OutboxEvent> events = outboxEventRepository.findAllById(ids);
+        for (OutboxEvent event : events) {
+            String error = failures.get(event.getId());
+            if (error == null) {
+                event.setStatus(OutboxStatus.SENT);
+                event.setSentAt(now);
+                event.setLastError(null);
+                continue;
+            }
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(error);
+            if (attempts >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+                log.error("Outbox event {} ({}) failed after {} attempts: {}",
+                        event.getId(), event.getEventType(), attempts, error);
+            } else {
+                event.setNextAttemptAt(now.plus(backoff(attempts)));
+                log.warn("Outbox event {} ({}) failed, attempt {}/{}: {}",
+                        event.getId(), event.getEventType(), attempts, maxAttempts, error);
+            }
+        }
+        outboxEventRepository.saveAll(events);
+    }
+
+    private Duration backoff(int attempts) {
+        long seconds = baseBackoffSeconds << Math.min(attempts - 1, 20);
+        return Duration.ofSeconds(Math.min(seconds, maxBackoffSeconds));
+    }
+}
@@ -6,6 +6,7 @@ import com.datn.order_service.entity.Order;
 import com.datn.order_service.enums.PaymentStatus;
 import com.datn.order_service.exception.OrderNotFoundException;
 import com.datn.order_service.repository.OrderRepository;
+import com.datn.order_service.utils.PaymentResultRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ public class PaymentService {
     private final VNPayService vnPayService;
     private final OrderService orderService;
     private final OrderRepository orderRepository;
+    private final PaymentResultRegistry paymentResultRegistry;
 
     /**
      * Tạo payment URL cho đơn hàng
@@ -39,6 +41,9 @@ public class PaymentService {
             throw new IllegalStateException("Order already paid: " + request.getOrderNumber());
         }
 
+        // Lượt thanh toán mới (kể cả thanh toán lại) bắt đầu từ trạng thái hiện tại
+        paymentResultRegistry.remember(order);
+
         // Tạo VNPay payment URL
         String paymentUrl = vnPayService.createPaymentUrl(request);
 
@@ -85,6 +90,9 @@ public class PaymentService {
             log.warn("Payment failed for order: {} - Code: {} - Message: {}",
                     orderNumber, responseCode, errorMessage);
         }
+
+        // Trả kết quả cho client đang chờ qua websocket và cho các lượt kiểm tra sau đó
+        paymentResultRegistry.complete(order);
     }
 
     /**
@@ -0,0 +1,81 @@
+package com.datn.order_service.utils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-customer version stamp for the "customerOrders" cache.
+ * Cache keys embed the current version, so bumping it invalidates every cached
+ * page and status filter of that customer at once; stale entries expire by TTL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerOrderCacheVersion {
+
+    private static final String KEY_PREFIX = "customerOrders:version:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public long current(Long customerId) {
+        try {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + customerId);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("Failed to read order cache version for customer {}: {}", customerId, e.getMessage());
+            return 0L;
+        }
+    }
+
+    public String key(Long customerId, String statusName, int page, int size, String sort) {
+        String status = (statusName == null || statusName.isBlank()) ? "ALL" : statusName;
+        return customerId + ":v" + current(customerId) + ":" + status + ":" + page + ":" + size + ":" + sort;
+    }
+
+    /**
+     * Bumps the version after the surrounding transaction commits, so a concurrent
+     * read cannot repopulate the new version with uncommitted state.
+     */
+    public void bump(Long customerId) {
+        if (customerId == null) {
+            return;
+        }
+        bumpAll(Set.of(customerId));
+    }
+
+    public void bumpAll(Collection<Long> customerIds) {
+        Set<Long> ids = new HashSet<>(customerIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(ids);
+                }
+            });
+        } else {
+            increment(ids);
+        }
+    }
+
+    private void increment(Set<Long> customerIds) {
+        for (Long customerId : customerIds) {
+            try {
+                redisTemplate.opsForValue().increment(KEY_PREFIX + customerId);
+            } catch (Exception e) {
+                log.warn("Failed to bump order cache version for customer {}: {}", customerId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.datn.order_service.utils;
+
+import com.datn.order_service.dto.response.ApiResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Redis-backed Idempotency-Key handling for order placing endpoints.
+ * The first request with a key leaves an in-flight marker, runs, and replaces the marker
+ * with its successful response; repeats get that response (or 409 while it is still
+ * running) without reaching product or inventory services. Failed attempts release the key.
+ * Keys are scoped per endpoint and customer. When Redis is unreachable requests run as usual.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyStore {
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final String IN_FLIGHT = "IN_FLIGHT";
+    private static final TypeReference<ApiResponse<Map<String, Object>>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.idempotency.in-flight-ttl-seconds:60}")
+    private long inFlightTtlSeconds;
+
+    @Value("${order.idempotency.result-ttl-hours:24}")
+    private long resultTtlHours;
+
+    public ResponseEntity<ApiResponse<Map<String, Object>>> execute(
+            String scope, Long customerId, String idempotencyKey,
+            Supplier<ResponseEntity<ApiResponse<Map<String, Object>>>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        String key = KEY_PREFIX + scope + ":" + customerId + ":" + idempotencyKey;
+
+        Boolean claimed;
+        try {
+            claimed = redisTemplate.opsForValue().setIfAbsent(key, IN_FLIGHT, Duration.ofSeconds(inFlightTtlSeconds));
+        } catch (Exception e) {
+            log.warn("Idempotency store unavailable, running {} without it: {}", scope, e.getMessage());
+            return action.get();
+        }
+
+        if (!Boolean.TRUE.equals(claimed)) {
+            return replay(key);
+        }
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            save(key, response.getBody());
+        } else {
+            release(key);
+        }
+        return response;
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> replay(String key) {
+        String stored;
+        try {
+            stored = redisTemplate.opsForValue().get(key);
+            if (stored != null && !IN_FLIGHT.equals(stored)) {
+                log.info("Replaying stored response for {}", key);
+                return ResponseEntity.ok(objectMapper.readValue(stored, RESPONSE_TYPE));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read idempotent response {}: {}", key, e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse<>("Đơn hàng đang được xử lý, vui lòng chờ trong giây lát!", false, null));
+    }
+
+    private void save(String key, ApiResponse<Map<String, Object>> body) {
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(body), Duration.ofHours(resultTtlHours));
+        } catch (Exception e) {
+            log.warn("Failed to store idempotent response {}: {}", key, e.getMessage());
+            release(key);
+        }
+    }
+
+    private void release(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (Exception e) {
+            log.warn("Failed to release idempotency key {}: {}", key, e.getMessage());
+        }
+    }
+}
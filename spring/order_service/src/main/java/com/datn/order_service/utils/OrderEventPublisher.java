@@ -1,16 +1,89 @@
 package com.datn.order_service.utils;
 
 import com.datn.order_service.dto.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.*;
+
+/**
+ * Buffers order events for a short window and sends each destination one batched frame.
+ * Within a window only the latest event per order is kept, so a bulk status change of N
+ * orders costs one frame per destination instead of N.
+ * Destinations: /topic/orders (all), /topic/orders/warehouse/{id}, /topic/orders/customer/{id}.
+ */
 @Component
+@Slf4j
 public class OrderEventPublisher {
+
+    public static final String TOPIC = "/topic/orders";
+    public static final String WAREHOUSE_TOPIC_PREFIX = TOPIC + "/warehouse/";
+    public static final String CUSTOMER_TOPIC_PREFIX = TOPIC + "/customer/";
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Value("${order.events.max-pending:5000}")
+    private int maxPending;
+
+    // Insertion ordered so a batch keeps the order events happened in; guarded by itself
+    private final Map<Long, OrderEvent> pending = new LinkedHashMap<>();
+    private long dropped;
+
     public void publish(OrderEvent event) {
-        messagingTemplate.convertAndSend("/topic/orders", event);
+        synchronized (pending) {
+            if (pending.size() >= maxPending && !pending.containsKey(event.getOrderId())) {
+                // Clients refetch on any event, so losing part of an oversized burst is harmless
+                dropped++;
+                return;
+            }
+            pending.remove(event.getOrderId());
+            pending.put(event.getOrderId(), event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.events.coalesce-window-ms:250}")
+    public void flush() {
+        List<OrderEvent> batch;
+        long droppedInWindow;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            droppedInWindow = dropped;
+            dropped = 0;
+        }
+        if (droppedInWindow > 0) {
+            log.warn("Dropped {} order events over the pending limit {}", droppedInWindow, maxPending);
+        }
+
+        Map<Long, List<OrderEvent>> byWarehouse = new HashMap<>();
+        Map<Long, List<OrderEvent>> byCustomer = new HashMap<>();
+        for (OrderEvent event : batch) {
+            if (event.getWarehouseIds() != null) {
+                for (Long warehouseId : event.getWarehouseIds()) {
+                    byWarehouse.computeIfAbsent(warehouseId, k -> new ArrayList<>()).add(event);
+                }
+            }
+            if (event.getCustomerId() != null) {
+                byCustomer.computeIfAbsent(event.getCustomerId(), k -> new ArrayList<>()).add(event);
+            }
+        }
+
+        try {
+            messagingTemplate.convertAndSend(TOPIC, batch);
+            byWarehouse.forEach((warehouseId, events) ->
+                    messagingTemplate.convertAndSend(WAREHOUSE_TOPIC_PREFIX + warehouseId, events));
+            byCustomer.forEach((customerId, events) ->
+                    messagingTemplate.convertAndSend(CUSTOMER_TOPIC_PREFIX + customerId, events));
+        } catch (Exception e) {
+            log.error("Failed to broadcast {} order events", batch.size(), e);
+        }
     }
 }
@@ -0,0 +1,34 @@
+package com.datn.order_service.utils;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hi/lo allocator for order ids. Each nextval on orders_seq (INCREMENT BY {@value #BLOCK_SIZE})
+ * reserves the block [value - BLOCK_SIZE + 1, value], which is then handed out from memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderIdAllocator {
+
+    public static final String SEQUENCE_NAME = "orders_seq";
+    public static final int BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private long next = 0;
+    private long last = -1;
+
+    public synchronized long nextId() {
+        if (next > last) {
+            Long hi = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE_NAME + "')", Long.class);
+            if (hi == null) {
+                throw new IllegalStateException("Could not allocate order id from " + SEQUENCE_NAME);
+            }
+            next = hi - BLOCK_SIZE + 1;
+            last = hi;
+        }
+        return next++;
+    }
+}
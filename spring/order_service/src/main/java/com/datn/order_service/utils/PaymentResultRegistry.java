@@ -0,0 +1,134 @@
+package com.datn.order_service.utils;
+
+import com.datn.order_service.entity.Order;
+import com.datn.order_service.enums.PaymentStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest known payment state per order number, so payment status polls are answered
+ * without a query. The VNPay callback completes an entry and pushes it to
+ * /topic/payments/customer/{customerId}.
+ * PAID entries are kept for the whole TTL, since a paid order's payment only changes through
+ * the order status paths, which evict its entry here once they commit; an instance that did not
+ * handle the change keeps its entry until the TTL ends. Other states may still change on another
+ * instance (callback, re-pay), so they are only trusted for a short freshness window.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentResultRegistry {
+
+    public static final String TOPIC_PREFIX = "/topic/payments/customer/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${order.payments.result-ttl-minutes:30}")
+    private long resultTtlMinutes;
+
+    @Value("${order.payments.pending-fresh-ms:5000}")
+    private long pendingFreshMs;
+
+    private final Map<String, Entry> results = new ConcurrentHashMap<>();
+
+    private record Entry(Map<String, Object> paymentInfo, boolean paid, long storedAt) {
+    }
+
+    public Optional<Map<String, Object>> find(String orderNumber) {
+        Entry entry = results.get(orderNumber);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long age = System.currentTimeMillis() - entry.storedAt();
+        if (age > (entry.paid() ? resultTtlMinutes * 60_000 : pendingFreshMs)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.paymentInfo());
+    }
+
+    public Map<String, Object> remember(Order order) {
+        Map<String, Object> paymentInfo = toPaymentInfo(order);
+        store(order.getOrderNumber(), paymentInfo, order.getPaymentStatus());
+        return paymentInfo;
+    }
+
+    /**
+     * Records the result of a payment and pushes it to the customer once the surrounding
+     * transaction commits. Must be called while the order is still attached.
+     */
+    public void complete(Order order) {
+        String orderNumber = order.getOrderNumber();
+        Long customerId = order.getCustomerId();
+        PaymentStatus paymentStatus = order.getPaymentStatus();
+        Map<String, Object> paymentInfo = toPaymentInfo(order);
+        Runnable publish = () -> {
+            store(orderNumber, paymentInfo, paymentStatus);
+            try {
+                messagingTemplate.convertAndSend(TOPIC_PREFIX + customerId, paymentInfo);
+            } catch (Exception e) {
+                log.warn("Failed to push payment result of order {}: {}", orderNumber, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    /**
+     * Drops the order's entry once the surrounding transaction commits, so the next poll reads
+     * the order's new status and payment state.
+     */
+    public void evictAfterCommit(String orderNumber) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    results.remove(orderNumber);
+                }
+            });
+        } else {
+            results.remove(orderNumber);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - resultTtlMinutes * 60_000;
+        results.values().removeIf(entry -> entry.storedAt() < cutoff);
+    }
+
+    private void store(String orderNumber, Map<String, Object> paymentInfo, PaymentStatus paymentStatus) {
+        results.put(orderNumber, new Entry(paymentInfo, paymentStatus == PaymentStatus.PAID,
+                System.currentTimeMillis()));
+    }
+
+    private Map<String, Object> toPaymentInfo(Order order) {
+        Map<String, Object> paymentInfo = new HashMap<>();
+        paymentInfo.put("orderNumber", order.getOrderNumber());
+        paymentInfo.put("paymentStatus", order.getPaymentStatus().name());
+        paymentInfo.put("paymentMethod", order.getPaymentMethod());
+        paymentInfo.put("totalAmount", order.getTotalAmount());
+        paymentInfo.put("orderStatus", order.getStatus().getName());
+        paymentInfo.put("createdAt", order.getCreatedAt());
+        return Collections.unmodifiableMap(paymentInfo);
+    }
+}
@@ -1,6 +1,6 @@
 package com.datn.order_service.utils;
 
-import com.datn.order_service.service.OrderService;
+import com.datn.order_service.service.OrderAutoConfirmService;
 import lombok.AllArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -11,7 +11,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @AllArgsConstructor
 public class Scheduler {
 
-    private final OrderService orderService;
+    private final OrderAutoConfirmService orderAutoConfirmService;
     private final AtomicBoolean running = new AtomicBoolean(false);
 
     @Scheduled(cron = "0 0 0 * * ?", zone = "Asia/Ho_Chi_Minh")
@@ -19,7 +19,7 @@ public class Scheduler {
         if (!running.compareAndSet(false, true)) return;
 
         try {
-            orderService.autoConfirmOrders();
+            orderAutoConfirmService.autoConfirmOrders();
         } finally {
             running.set(false);
         }
@@ -1,6 +1,7 @@
 package com.doan.product_service.controllers;
 
 import com.doan.product_service.dtos.ApiResponse;
+import com.doan.product_service.dtos.product_variant.VariantPriceResponse;
 import com.doan.product_service.dtos.product_variant.VariantRequest;
 import com.doan.product_service.dtos.product_variant.VariantResponse;
 import com.doan.product_service.models.ProductVariant;
@@ -192,6 +193,26 @@ public class ProductVariantController {
         }
     }
 
+    @PostMapping("/internal/variants/sold")
+    public ResponseEntity<?> updateVariantSoldBatch(@RequestBody Map<Long, Integer> soldByVariant) {
+        try {
+            productVariantService.updateVariantSoldCounts(soldByVariant);
+            return ResponseEntity.ok(new ApiResponse<>("Cập nhật lượt bán của biến thể thành công!", true, null));
+        } catch (ResponseStatusException ex) {
+            return errorResponse(ex);
+        }
+    }
+
+    @PostMapping("/internal/variants/status")
+    public ResponseEntity<?> changeProductVariantStatusBatch(@RequestBody Map<Long, String> statusByVariant) {
+        try {
+            productVariantService.changeProductVariantStatuses(statusByVariant);
+            return ResponseEntity.ok(new ApiResponse<>("Thay đổi khả dụng thành công!", true, null));
+        } catch (ResponseStatusException ex) {
+            return errorResponse(ex);
+        }
+    }
+
     @PostMapping("/internal/variants/status/{id}")
     public ResponseEntity<?> changeProductVariantStatus(@PathVariable Long id, @RequestParam String status) {
         try {
@@ -216,6 +237,10 @@ public class ProductVariantController {
     public List<VariantResponse> getVariantByIds(@RequestParam List<Long> ids) {
         return productVariantService.getVariantByIds(ids);
     }
+    @GetMapping("/internal/variants/prices")
+    public List<VariantPriceResponse> getVariantPrices(@RequestParam List<Long> ids) {
+        return productVariantService.getVariantPrices(ids);
+    }
     @GetMapping("/internal/variants/limited")
     public List<VariantResponse> getVariantByIdsLimited(@RequestParam List<Long> ids) {
         return productVariantService.getVariantByIdsLimited(ids);
@@ -0,0 +1,18 @@
+package com.doan.product_service.dtos.product_variant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariantPriceResponse {
+    private Long id;
+    private BigDecimal sellingPrice;
+    private BigDecimal importPrice;
+    private Boolean isActive;
+    private String status;
+}
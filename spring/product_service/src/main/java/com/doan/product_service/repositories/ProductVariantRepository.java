@@ -1,5 +1,6 @@
 package com.doan.product_service.repositories;
 
+import com.doan.product_service.dtos.product_variant.VariantPriceResponse;
 import com.doan.product_service.models.Product;
 import com.doan.product_service.models.ProductVariant;
 import org.springframework.data.domain.Pageable;
@@ -28,6 +29,14 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,L
 
     List<ProductVariant> findBySkuContainingIgnoreCase(String code);
 
+    @Query("""
+            SELECT new com.doan.product_service.dtos.product_variant.VariantPriceResponse(
+                v.id, v.sellingPrice, v.importPrice, v.isActive, v.status)
+            FROM ProductVariant v
+            WHERE v.id IN :ids
+            """)
+    List<VariantPriceResponse> findPricesByIdIn(@Param("ids") List<Long> ids);
+
     @Query(value = """
             SELECT v.id,v.name,v.sku,v.sold_count,v.imageUrls
             FROM product_variants v
@@ -1,6 +1,7 @@
 package com.doan.product_service.services;
 
 import com.doan.product_service.dtos.product.ProductResponse;
+import com.doan.product_service.dtos.product_variant.VariantPriceResponse;
 import com.doan.product_service.dtos.product_variant.VariantRequest;
 import com.doan.product_service.dtos.product_variant.VariantResponse;
 import com.doan.product_service.models.Product;
@@ -321,6 +322,30 @@ public class ProductVariantService {
         webhookUtils.postToWebhook(variant.getProduct().getId(), "update");
     }
 
+    /**
+     * Applies stock statuses pushed by inventory-service. Variants deleted meanwhile are skipped
+     * and variants already in the given status are left untouched.
+     */
+    @Transactional
+    public void changeProductVariantStatuses(Map<Long, String> statusByVariant) {
+        if (statusByVariant == null || statusByVariant.isEmpty()) {
+            return;
+        }
+        List<ProductVariant> changed = new ArrayList<>();
+        for (ProductVariant variant : productVariantRepository.findAllById(statusByVariant.keySet())) {
+            String status = statusByVariant.get(variant.getId());
+            if (!Objects.equals(variant.getStatus(), status)) {
+                variant.setStatus(status);
+                changed.add(variant);
+            }
+        }
+        productVariantRepository.saveAll(changed);
+        changed.stream()
+                .map(variant -> variant.getProduct().getId())
+                .distinct()
+                .forEach(productId -> webhookUtils.postToWebhook(productId, "update"));
+    }
+
     public void deleteProductVariant(Long id) {
         ProductVariant variant = productVariantRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy biến thể với id: " + id));
@@ -370,6 +395,35 @@ public class ProductVariantService {
 
     }
 
+    /**
+     * Cộng lượt bán cho nhiều biến thể trong một lần (variantId -> số lượng)
+     */
+    @Transactional
+    public void updateVariantSoldCounts(Map<Long, Integer> soldByVariant) {
+        if (soldByVariant == null || soldByVariant.isEmpty()) {
+            return;
+        }
+        List<ProductVariant> variants = productVariantRepository.findAllById(soldByVariant.keySet());
+        if (variants.size() < soldByVariant.size()) {
+            Set<Long> found = new HashSet<>();
+            variants.forEach(v -> found.add(v.getId()));
+            Long missing = soldByVariant.keySet().stream().filter(id -> !found.contains(id)).findFirst().orElse(null);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy biến thể với id: " + missing);
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (ProductVariant variant : variants) {
+            int num = soldByVariant.get(variant.getId());
+            variant.setSoldCount(variant.getSoldCount() + num);
+            Product product = variant.getProduct();
+            product.setTotalSold(product.getTotalSold() + num);
+            products.put(product.getId(), product);
+        }
+        productVariantRepository.saveAll(variants);
+        productRepository.saveAll(products.values());
+        products.keySet().forEach(productId -> webhookUtils.postToWebhook(productId, "update"));
+    }
+
     public List<ProductVariant> findByCodeContainingIgnoreCase(String code) {
         return productVariantRepository.findBySkuContainingIgnoreCase(code);
     }
@@ -400,6 +454,9 @@ public class ProductVariantService {
     public List<VariantResponse> getVariantByIds(List<Long> ids) {
         return productVariantRepository.findAllById(ids).stream().map(this::toVariantResponse).toList();
     }
+    public List<VariantPriceResponse> getVariantPrices(List<Long> ids) {
+        return productVariantRepository.findPricesByIdIn(ids);
+    }
     public List<VariantResponse> getVariantByIdsLimited(List<Long> ids) {
         return productVariantRepository.findAllById(ids).stream().map(productVariant ->
                 VariantResponse.builder()
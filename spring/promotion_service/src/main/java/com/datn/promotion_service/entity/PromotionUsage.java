@@ -7,7 +7,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "promotion_usages")
+@Table(name = "promotion_usages", uniqueConstraints =
+        // A redelivered usage for the same order fails here instead of counting twice
+        @UniqueConstraint(name = "uk_promotion_usages_promotion_order", columnNames = {"promotion_id", "order_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -248,7 +248,8 @@ public class PromotionService {
                 .orderId(orderId)
                 .build();
 
-        promotionUsageRepository.save(usage);
+        // Inserted before the count changes: a concurrent duplicate waits on the unique key and then fails
+        promotionUsageRepository.saveAndFlush(usage);
 
         Promotion promotion = promotionRepository.findById(promotionId)
                 .orElseThrow(() -> new PromotionNotFoundException("Không tìm thấy khuyến mãi"));